@@ -0,0 +1,26 @@
+package slowgrowers.benchmarks;
+
+import slowgrowers.EventEngine;
+import slowgrowers.GillespieEngine;
+import slowgrowers.ParallelTauLeapEngine;
+import slowgrowers.RejectionEngine;
+import slowgrowers.TauLeapEngine;
+
+final class Engines {
+
+    //the engines the benchmarks are run with, by the names used in their @Param lists
+    static EventEngine create(String name){
+        if(name.equals("rejection")) return new RejectionEngine();
+        if(name.equals("gillespie")) return new GillespieEngine();
+        if(name.equals("tau-leap")) return new TauLeapEngine();
+        if(name.equals("parallel-tau-leap")) return new ParallelTauLeapEngine(Runtime.getRuntime().availableProcessors());
+        throw new IllegalArgumentException("unknown engine " + name);
+    }
+
+    //shuts down the thread pool of an engine which has one
+    static void close(EventEngine engine){
+        if(engine instanceof ParallelTauLeapEngine) ((ParallelTauLeapEngine)engine).close();
+    }
+
+    private Engines(){}
+}
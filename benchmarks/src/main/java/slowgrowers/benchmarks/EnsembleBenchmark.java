@@ -0,0 +1,47 @@
+package slowgrowers.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import slowgrowers.Ensemble;
+import slowgrowers.SimParameters;
+import slowgrowers.SimRandom;
+
+//Ensembles of nReps replicates of the SweepPointBenchmark sweep point run per second. Multiply by nReps
+//to set it against the replicates per second of the single-system engines.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnsembleBenchmark {
+
+    @Param({"1", "16"})
+    public int nReps;
+
+    private long seed;
+
+    @Benchmark
+    public int ensemble(){
+        SimRandom[] rands = new SimRandom[nReps];
+        for(int r = 0; r < nReps; r++) rands[r] = new SimRandom(seed, r);
+        seed++;
+
+        Ensemble ensemble = new Ensemble(SimParameters.DEFAULT, 100, 500, 0.02, rands);
+        ensemble.run(100.);
+        int total = 0;
+        for(int r = 0; r < nReps; r++) total += ensemble.getPopulation(r);
+        return total;
+    }
+}
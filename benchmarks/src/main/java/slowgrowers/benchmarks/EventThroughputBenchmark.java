@@ -0,0 +1,72 @@
+package slowgrowers.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import slowgrowers.BioSystem;
+import slowgrowers.EventEngine;
+import slowgrowers.SimRandom;
+
+//performAction calls per second for each engine, on the systems the subclasses make. Each system runs up to
+//duration(); one which gets there or dies out is replaced by a new one with the next seed inside the measured
+//call, so the rate covers the whole of a run rather than just its start. A tau-leaping call covers many
+//events, so compare the engines on the same system rather than call for call.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class EventThroughputBenchmark {
+
+    @Param({"rejection", "gillespie", "tau-leap", "parallel-tau-leap"})
+    public String engine;
+
+    private EventEngine eventEngine;
+    private BioSystem bs;
+    private long seed;
+
+    //a new system, in the state a run starts from
+    protected abstract BioSystem createSystem();
+
+    protected abstract double duration();
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        eventEngine = Engines.create(engine);
+        bs = nextSystem();
+    }
+
+    @Benchmark
+    public int performAction(){
+        if(bs.getTimeElapsed() > duration() || bs.getPopulationDead()) bs = nextSystem();
+        bs.performAction();
+        return bs.getCurrentPopulation();
+    }
+
+    private BioSystem nextSystem(){
+        BioSystem next = createSystem();
+        next.setRand(new SimRandom(seed++));
+        //an engine is initialised afresh by every system it's attached to
+        next.setEventEngine(eventEngine);
+        return next;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        Engines.close(eventEngine);
+    }
+}
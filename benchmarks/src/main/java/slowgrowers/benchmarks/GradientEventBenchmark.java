@@ -0,0 +1,26 @@
+package slowgrowers.benchmarks;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import slowgrowers.BioSystem;
+
+//the exponential gradient, alpha = 0.02 with 500 nutrients per microhabitat, starting from K bacteria
+@State(Scope.Thread)
+public class GradientEventBenchmark extends EventThroughputBenchmark {
+
+    @Param({"100", "500", "2000"})
+    public int L;
+
+    @Param({"100", "10000"})
+    public int K;
+
+    protected BioSystem createSystem(){
+        return new BioSystem(L, K, 500, 0.02);
+    }
+
+    protected double duration(){
+        return 20.;
+    }
+}
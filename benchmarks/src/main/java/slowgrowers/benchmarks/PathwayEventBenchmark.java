@@ -0,0 +1,34 @@
+package slowgrowers.benchmarks;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import slowgrowers.BioSystem;
+import slowgrowers.SimParameters;
+
+//the gradient of GradientEventBenchmark (L = 100) with an evolutionary path of finalM genotypes, each
+//mutation doubling the MIC and costing 5% of the replication rate, so every genotype has its own rates
+@State(Scope.Thread)
+public class PathwayEventBenchmark extends EventThroughputBenchmark {
+
+    @Param({"2", "10", "20"})
+    public int finalM;
+
+    private SimParameters params;
+
+    //runs before the base class's set up, which makes the first system
+    @Setup
+    public void setUpParameters(){
+        params = SimParameters.DEFAULT.withFinalM(finalM).withMu(0.01).withPathway(2., 0.05);
+    }
+
+    protected BioSystem createSystem(){
+        return new BioSystem(params, 100, 500, 0.02);
+    }
+
+    protected double duration(){
+        return 100.;
+    }
+}
@@ -0,0 +1,94 @@
+package slowgrowers.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import slowgrowers.Bacteria;
+import slowgrowers.BioSystem;
+import slowgrowers.Microhabitat;
+
+//replication rates of the whole gradient (500 nutrients, alpha = 0.02) got per second, three ways:
+//recomputed one Microhabitat at a time with Bacteria.replicationRate (the original scalar path),
+//recomputed over flat arrays by replicationRateKernel, and copied from the rates the microhabitats
+//cache, which is what getGrowthRateDistributions does. Copying the cached rates is the fastest, so the
+//kernel is only kept here as the experiment behind that choice.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateKernelBenchmark {
+
+    private static final int S = 500;
+
+    @Param({"100", "500", "2000"})
+    public int L;
+
+    private BioSystem bs;
+    private Bacteria bac;
+    private double K_prime;
+    private double[] cSquared, s, monodMax, out;
+
+    @Setup
+    public void setUp(){
+        bs = new BioSystem(L, S, 0.02);
+        bac = bs.getBacteriaOfGenotype(1);
+        K_prime = bs.getParameters().getK_prime();
+
+        cSquared = new double[L];
+        s = new double[L];
+        monodMax = new double[L];
+        out = new double[L];
+        for(int i = 0; i < L; i++){
+            Microhabitat m = bs.getMicrohabitat(i);
+            //a spread of nutrient levels, as partway through a run
+            m.setS(S - (i*7919) % (S+1));
+            cSquared[i] = m.getC()*m.getC();
+            s[i] = m.getS();
+            monodMax[i] = m.getS_max()/(K_prime + m.getS_max());
+        }
+    }
+
+    @Benchmark
+    public double[] scalar(){
+        for(int i = 0; i < L; i++){
+            Microhabitat m = bs.getMicrohabitat(i);
+            out[i] = bac.replicationRate(m.getC(), m.getS(), m.getS_max());
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] kernel(){
+        replicationRateKernel(cSquared, s, monodMax, K_prime, out, L);
+        return out;
+    }
+
+    @Benchmark
+    public double[] cached(){
+        bs.getGrowthRateDistributions(out);
+        return out;
+    }
+
+    //the scalar path's sum over flat arrays, with the loop free of calls and of dependencies between
+    //iterations so the JIT can unroll it
+    private static void replicationRateKernel(double[] cSquared, double[] s, double[] monodMax, double K_prime, double[] out, int L){
+        for(int i = 0; i < L; i++){
+            double monod = s[i]/(K_prime + s[i]);
+            double beta = 1. + 9.*monod/monodMax[i];
+            out[i] = Math.max(1. - cSquared[i]/(beta*beta), 0.)*monod;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package slowgrowers.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import slowgrowers.BioSystem;
+import slowgrowers.EventEngine;
+import slowgrowers.SimMetrics;
+import slowgrowers.SimRandom;
+
+//replicates per second of one antibioticGradientVsNutrients-style sweep point (L = 100, K = 100, 500
+//nutrients, alpha = 0.02, run to time 100) with each engine. With metrics=true the event loop is
+//instrumented and the mix of events each engine carried out, and where its time went, is printed at the
+//end of the trial; the instrumentation costs a little, so compare rates with metrics=false.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SweepPointBenchmark {
+
+    private static final int L = 100;
+
+    @Param({"rejection", "gillespie", "tau-leap", "parallel-tau-leap"})
+    public String engine;
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private EventEngine eventEngine;
+    private SimMetrics simMetrics;
+    private long seed;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        eventEngine = Engines.create(engine);
+        if(metrics) simMetrics = new SimMetrics(L);
+    }
+
+    @Benchmark
+    public int replicate(){
+        BioSystem bs = new BioSystem(L, 100, 500, 0.02);
+        bs.setRand(new SimRandom(seed++));
+        bs.setEventEngine(eventEngine);
+        if(simMetrics != null) bs.setMetrics(simMetrics);
+
+        while(bs.getTimeElapsed() <= 100. && !bs.getPopulationDead()) bs.performAction();
+        return bs.getCurrentPopulation();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        Engines.close(eventEngine);
+        if(simMetrics != null){
+            System.out.println();
+            System.out.println(engine + "\t" + SimMetrics.columnNames());
+            System.out.println(engine + "\t" + simMetrics);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package slowgrowers.benchmarks;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import slowgrowers.BioSystem;
+import slowgrowers.NutrientTransport;
+import slowgrowers.SimParameters;
+
+//the gradient of GradientEventBenchmark with nutrients diffusing and replenished every 0.1 time units,
+//to set against the same gradient without any transport
+@State(Scope.Thread)
+public class TransportEventBenchmark extends EventThroughputBenchmark {
+
+    @Param({"500", "2000"})
+    public int L;
+
+    protected BioSystem createSystem(){
+        BioSystem bs = new BioSystem(L, SimParameters.DEFAULT.getK(), 500, 0.02);
+        bs.setNutrientTransport(new NutrientTransport(0.1, 0.5, 0.01));
+        return bs;
+    }
+
+    protected double duration(){
+        return 20.;
+    }
+}
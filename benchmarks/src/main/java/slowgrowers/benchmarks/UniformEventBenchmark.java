@@ -0,0 +1,23 @@
+package slowgrowers.benchmarks;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import slowgrowers.BioSystem;
+
+//a uniform concentration c = 1.5 with 500 nutrients per microhabitat, starting from a single bacterium
+@State(Scope.Thread)
+public class UniformEventBenchmark extends EventThroughputBenchmark {
+
+    @Param({"100", "500", "2000"})
+    public int L;
+
+    protected BioSystem createSystem(){
+        return new BioSystem(L, 1, 500, 1.5, "uniform");
+    }
+
+    protected double duration(){
+        return 5.;
+    }
+}
@@ -1,40 +1,42 @@
+package slowgrowers;
+
 import java.util.ArrayList;
 
 public class Bacteria {
 
     //m corresponds to the current genotype of the bacterium
     private int m;
-    //finalM is the total no. of genotypes in this evolutionary path
-    private int finalM;
     private final int initialM = 1;
-    //migration rate: probability the bacterium migrates from one microhabitat to a neighbouring one
-    private double b = 0.1;
-    //death rate
-    private double d = 0.;
-    //mutation rate
-    private double mu = 0.;
-    private double K_prime = 33.;
+    //the rates (migration b, death d, mutation mu), K_prime, the no. of genotypes finalM and the per-genotype
+    //rates of the evolutionary path, shared by every bacterium
+    private final SimParameters params;
 
-    public Bacteria(int m){
+    public Bacteria(int m, SimParameters params){
         this.m = m;
-        this.finalM = 2;
+        this.params = params;
+    }
+
+    public Bacteria(int m){
+        this(m, SimParameters.DEFAULT);
     }
 
 
     public int getM(){return m;}
-    public int getFinalM(){return finalM;}
-    public double getB(){return b;}
-    public double getD(){return d;}
-    public double getMu(){return mu;}
+    public int getFinalM(){return params.getFinalM();}
+    public double getB(){return params.getB(m);}
+    public double getD(){return params.getD(m);}
+    public double getMu(){return params.getMu();}
 
 
     //MIC now depends on the nutrients present in the microhabitat
     //s = no. of nutrients, s_max =  max no. of nutrients present at the start
     public double beta(double s, double s_max){
 
+            double K_prime = params.getK_prime();
             double mu = s/(K_prime+s);
             double mu_max = s_max/(K_prime+s_max);
-            return 1. + 9.*mu/mu_max;
+            //resistant genotypes have their MIC scaled up
+            return params.getMicScale(m)*(1. + 9.*mu/mu_max);
 
     }
 
@@ -48,11 +50,11 @@ public class Bacteria {
     public double replicationRate(double c, double s, double s_max){
 
         //System.out.println("rep rate:\t"+growthRate(c, s, s_max, K) * s/(K + s));
-        return growthRate(c, s, s_max) * s/(K_prime + s);
+        return (1. - params.getGrowthPenalty(m)) * growthRate(c, s, s_max) * s/(params.getK_prime() + s);
     }
 
     public void increaseGenotype(){
-        if(m < finalM){
+        if(m < params.getFinalM()){
             m++;
         }
     }
@@ -0,0 +1,98 @@
+package slowgrowers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class BinaryTimeSeriesSink implements TimeSeriesSink {
+
+    //fixed-width little-endian rows: double time, int series, int nValues, then nValues doubles, so the
+    //file can be read straight into numpy/columnar tools. Rows are batched into a direct buffer and
+    //written through a FileChannel.
+    //header: magic, version, no. of series, then each series name and the header as (int length, UTF-8 bytes).
+    public static final int MAGIC = 0x54534e4b, VERSION = 1;
+
+    private FileChannel channel;
+    private ByteBuffer buffer;
+    private int nSeries;
+
+    public BinaryTimeSeriesSink(String filename, String[] seriesNames, String header, long resumeAt){
+        this.nSeries = seriesNames.length;
+        this.buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        try{
+            channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    (resumeAt >= 0) ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+            if(resumeAt >= 0) channel.truncate(resumeAt);
+
+            if(channel.size() == 0){
+                buffer.putInt(MAGIC).putInt(VERSION).putInt(nSeries);
+                for(String name : seriesNames) putString(name);
+                putString(header == null ? "" : header);
+            }
+        }catch(IOException e){
+            throw new UncheckedIOException("couldn't open " + filename, e);
+        }
+    }
+
+    private void putString(String s){
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        ensureSpace(4 + bytes.length);
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    public void writeRow(double time, int series, double[] values){
+        if(series < 0 || series >= nSeries) throw new IllegalArgumentException("unknown series " + series);
+
+        ensureSpace(16);
+        buffer.putDouble(time).putInt(series).putInt(values.length);
+        for(double v : values){
+            if(buffer.remaining() < 8) drain();
+            buffer.putDouble(v);
+        }
+    }
+
+    private void ensureSpace(int bytes){
+        if(buffer.remaining() < bytes) drain();
+        if(buffer.remaining() < bytes){
+            ByteBuffer larger = ByteBuffer.allocateDirect(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            buffer = larger;
+        }
+    }
+
+    private void drain(){
+        buffer.flip();
+        try{
+            while(buffer.hasRemaining()) channel.write(buffer);
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    public void flush(){
+        drain();
+    }
+
+    public long sync(){
+        drain();
+        try{
+            return channel.size();
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void close(){
+        drain();
+        try{
+            channel.close();
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+}
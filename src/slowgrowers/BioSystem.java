@@ -0,0 +1,1049 @@
+package slowgrowers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class BioSystem {
+
+    //no. of habitats, "carrying capacity", no. of nutrients present initially in each habitat
+    private int L, K, s, s_max;
+
+    private double c, alpha, timeElapsed;
+
+    private boolean populationDead = false;
+
+    private Microhabitat[] microhabitats;
+    //running populations of each microhabitat, used to select bacteria in O(log L)
+    private FenwickTree habitatPops;
+    //running totals over every microhabitat, kept up to date as they change so the queries are O(1).
+    //totalResistant is the no. of bacteria of the final genotype, nFullOfMutants the no. of non-empty
+    //microhabitats for which fullOfMutants() holds.
+    private int totalMutants, totalResistant, totalNutrients, nFullOfMutants;
+    //the occupied region: every non-empty microhabitat lies in [occupiedFrom, occupiedTo), and the ends of
+    //the range are non-empty. In the gradient the population spreads out from the first microhabitat as
+    //a front, so engines and samplers can skip the empty habitats beyond it.
+    private int occupiedFrom, occupiedTo;
+    //the scheme used to pick and carry out events
+    private EventEngine engine;
+    //the rates and other model constants, shared by every microhabitat and bacterium
+    private SimParameters params;
+    //one shared Bacteria per genotype, used to look up the rates of genotype m
+    private Bacteria[] genotypes;
+    //where the engine records what it does, null (the default) turns the instrumentation off
+    private SimMetrics metrics;
+    //log of every change to the microhabitats, null (the default) unless the run is being traced
+    private EventTrace trace;
+    //diffusion and replenishment of the nutrients between events, null (the default) leaves them to be used up
+    private NutrientTransport transport;
+
+    SimRandom rand = new SimRandom();
+
+    //observers sampling the system at regular times. nextSampleTime is the earliest time any of them is
+    //due, so the event loop only pays for one comparison per event.
+    private ArrayList<SampleObserver> observers = new ArrayList<SampleObserver>();
+    private ArrayList<double[]> observerTimes = new ArrayList<double[]>();
+    private double nextSampleTime = Double.POSITIVE_INFINITY;
+
+    //snapshot layout: magic, version, then the fields written by toSnapshot() in order
+    private static final int SNAPSHOT_MAGIC = 0x42494f53, SNAPSHOT_VERSION = 5;
+
+    public BioSystem(int L, int S, double alpha){
+        this(SimParameters.DEFAULT, L, S, alpha);
+    }
+
+    //exponential gradient with K wild type bacteria in the first microhabitat
+    public BioSystem(int L, int K, int S, double alpha){
+        this(SimParameters.DEFAULT.withK(K), L, S, alpha);
+    }
+
+    //exponential gradient with params.getK() wild type bacteria in the first microhabitat
+    public BioSystem(SimParameters params, int L, int S, double alpha){
+
+        this.params = params;
+        this.L = L;
+        this.K = params.getK();
+        this.s = S;
+        this.s_max = S;
+        this.alpha = alpha;
+
+        this.microhabitats = new Microhabitat[L];
+        this.timeElapsed = 0.;
+
+        for(int i = 0; i < L; i++){
+
+            double c_i = Math.exp(alpha*(double)i) - 1.;
+            microhabitats[i] = new Microhabitat(c_i, S, params);
+        }
+        microhabitats[0].setK(K);
+        microhabitats[0].fillWithWildType();
+        buildGenotypes();
+        buildPopulationIndex();
+        setEventEngine(new RejectionEngine());
+    }
+
+    public BioSystem(int L, int K, int S, double c, String token){
+        this(SimParameters.DEFAULT.withK(K), L, S, c, token);
+    }
+
+    //uniform concentration c, with a single wild type bacterium in every microhabitat
+    public BioSystem(SimParameters params, int L, int S, double c, String token){
+
+        this.params = params;
+        this.L = L;
+        this.K = params.getK();
+        this.s = S;
+        this.s_max = S;
+        this.c = c;
+
+        this.microhabitats = new Microhabitat[L];
+        this.timeElapsed = 0.;
+
+        for(int i = 0; i < L; i++) {
+            microhabitats[i] = new Microhabitat(c, S, params);
+            microhabitats[i].innoculateWithABActeria();
+        }
+        buildGenotypes();
+        buildPopulationIndex();
+        setEventEngine(new RejectionEngine());
+    }
+
+    //used when restoring from a snapshot, all of the state is filled in by fromSnapshot()
+    private BioSystem(){}
+
+    private void buildGenotypes(){
+        genotypes = new Bacteria[params.getFinalM()];
+        for(int m = 1; m <= params.getFinalM(); m++){
+            genotypes[m-1] = new Bacteria(m, params);
+        }
+    }
+
+    private void buildPopulationIndex(){
+        int[] counts = new int[L];
+        for(int i = 0; i < L; i++){
+            counts[i] = microhabitats[i].getN();
+        }
+        habitatPops = new FenwickTree(counts);
+
+        totalMutants = 0;
+        totalResistant = 0;
+        totalNutrients = 0;
+        nFullOfMutants = 0;
+        occupiedFrom = 0;
+        occupiedTo = 0;
+        for(int i = 0; i < L; i++){
+            countMicrohabitat(i, 1);
+        }
+    }
+
+    //adds (sign = 1) or removes (sign = -1) microhabitat i's contribution to the running totals.
+    //every change to a microhabitat is wrapped in a removal beforehand and an addition afterwards.
+    private void countMicrohabitat(int i, int sign){
+        Microhabitat m = microhabitats[i];
+        totalMutants += sign*m.getNMutants();
+        totalResistant += sign*m.getGenotypeCount(m.getFinalM());
+        totalNutrients += sign*m.getS();
+        if(m.getN() > 0 && m.fullOfMutants()) nFullOfMutants += sign;
+        if(sign > 0) updateOccupiedRange(i);
+    }
+
+    //called once microhabitat i has changed. The range only shrinks when one of its ends empties, and then
+    //only walks over the habitats which have emptied.
+    private void updateOccupiedRange(int i){
+        if(microhabitats[i].getN() > 0){
+            if(occupiedFrom == occupiedTo){
+                occupiedFrom = i;
+                occupiedTo = i+1;
+            }else{
+                occupiedFrom = Math.min(occupiedFrom, i);
+                occupiedTo = Math.max(occupiedTo, i+1);
+            }
+        }else if(i == occupiedFrom || i == occupiedTo-1){
+            while(occupiedFrom < occupiedTo && microhabitats[occupiedFrom].getN() == 0) occupiedFrom++;
+            while(occupiedTo > occupiedFrom && microhabitats[occupiedTo-1].getN() == 0) occupiedTo--;
+            if(occupiedFrom == occupiedTo){
+                occupiedFrom = 0;
+                occupiedTo = 0;
+            }
+        }
+    }
+
+    //the non-empty microhabitats all lie in [getOccupiedFrom(), getOccupiedTo()), which is empty if the population is
+    public int getOccupiedFrom(){
+        return occupiedFrom;
+    }
+    public int getOccupiedTo(){
+        return occupiedTo;
+    }
+
+    FenwickTree getPopulationIndex(){
+        return habitatPops;
+    }
+
+    public EventEngine getEventEngine(){
+        return engine;
+    }
+    public void setEventEngine(EventEngine engine){
+        this.engine = engine;
+        engine.initialise(this);
+    }
+
+    public SimMetrics getMetrics(){
+        return metrics;
+    }
+    public void setMetrics(SimMetrics metrics){
+        this.metrics = metrics;
+    }
+
+    public EventTrace getTrace(){
+        return trace;
+    }
+    public void setTrace(EventTrace trace){
+        this.trace = trace;
+    }
+
+    public NutrientTransport getNutrientTransport(){
+        return transport;
+    }
+    public void setNutrientTransport(NutrientTransport transport){
+        this.transport = transport;
+        if(transport != null) transport.initialise(this);
+    }
+
+    public int getL(){
+        return L;
+    }
+
+    public SimParameters getParameters(){
+        return params;
+    }
+
+    public double getTimeElapsed(){
+        return timeElapsed;
+    }
+    public void setTimeElapsed(double timeElapsed){
+        this.timeElapsed = timeElapsed;
+        for(double[] times : observerTimes){
+            times[3] = Math.ceil(timeElapsed/times[0]);
+            times[2] = times[3]*times[0];
+        }
+        updateNextSampleTime();
+    }
+
+    public SimRandom getRand(){
+        return rand;
+    }
+    public void setRand(SimRandom rand){
+        this.rand = rand;
+    }
+
+    void advanceTime(double dt){
+        advanceTimeTo(timeElapsed + dt);
+    }
+
+    //moves the clock on to newTime, calling any observers due on the way
+    void advanceTimeTo(double newTime){
+        if(newTime >= nextSampleTime) sampleUpTo(newTime);
+        timeElapsed = newTime;
+    }
+
+    //observer is called at every multiple of interval from now until endTime
+    public void addObserver(SampleObserver observer, double interval, double endTime){
+        if(interval <= 0.) throw new IllegalArgumentException("sampling interval must be positive: " + interval);
+
+        observers.add(observer);
+        //interval, end time, next sample time and the no. of intervals it lies at. Sample times are
+        //always a whole no. of intervals, rather than summed, so they don't drift.
+        double k = Math.ceil(timeElapsed/interval);
+        observerTimes.add(new double[]{interval, endTime, k*interval, k});
+        updateNextSampleTime();
+    }
+
+    public void addObserver(SampleObserver observer, double interval){
+        addObserver(observer, interval, Double.POSITIVE_INFINITY);
+    }
+
+    public void removeObserver(SampleObserver observer){
+        int i = observers.indexOf(observer);
+        if(i < 0) return;
+        observers.remove(i);
+        observerTimes.remove(i);
+        updateNextSampleTime();
+    }
+
+    private void updateNextSampleTime(){
+        nextSampleTime = nextSampleTime(false);
+    }
+
+    //earliest sample time due, optionally ignoring observers which never stop
+    private double nextSampleTime(boolean finiteOnly){
+        double next = Double.POSITIVE_INFINITY;
+        for(double[] times : observerTimes){
+            if(times[2] > times[1] || (finiteOnly && times[1] == Double.POSITIVE_INFINITY)) continue;
+            next = Math.min(next, times[2]);
+        }
+        return next;
+    }
+
+    //calls the observers, in time order, for every sample time up to newTime. The state hasn't changed yet,
+    //so it's the state at each of those times. When the clock jumps to infinity (nothing can happen any
+    //more) only observers with a finite end time can be brought up to date.
+    private void sampleUpTo(double newTime){
+
+        boolean finiteOnly = (newTime == Double.POSITIVE_INFINITY);
+        double sampleTime = nextSampleTime(finiteOnly);
+
+        while(sampleTime <= newTime && sampleTime < Double.POSITIVE_INFINITY){
+
+            timeElapsed = sampleTime;
+
+            for(int i = 0; i < observers.size(); i++){
+                double[] times = observerTimes.get(i);
+                if(times[2] == sampleTime && times[2] <= times[1]){
+                    times[3]++;
+                    times[2] = times[3]*times[0];
+                    SampleObserver observer = observers.get(i);
+                    observer.sample(this, sampleTime);
+                    //the observer may have removed itself
+                    if(i < observers.size() && observers.get(i) != observer) i--;
+                }
+            }
+            sampleTime = nextSampleTime(finiteOnly);
+        }
+        updateNextSampleTime();
+    }
+
+    public boolean getPopulationDead(){
+        return populationDead;
+    }
+
+    public void setC(double c){
+        for(Microhabitat m : microhabitats) {
+            m.setC(c);
+        }
+        engine.initialise(this);
+    }
+
+    public int getCurrentPopulation(){
+        return habitatPops.getTotal();
+    }
+
+    public int getCurrentNutrients(){
+        return totalNutrients;
+    }
+
+    public int nMutants(){
+        return totalMutants;
+    }
+
+    //no. of bacteria of the final, most resistant, genotype
+    public int nResistant(){
+        return totalResistant;
+    }
+
+    public boolean fullMicrohabOfMutants(){
+        return nFullOfMutants > 0;
+    }
+
+    public ArrayList<Double> getSpatialDistribution(){
+        ArrayList<Double> microhabPops = new ArrayList<>(L);
+        for(int i = 0; i < L; i++){
+            microhabPops.add((double)microhabitats[i].getN());
+        }
+        return microhabPops;
+    }
+
+    //method for getting the current growth rates in each microhabitat
+    public ArrayList<Double> getGrowthRateDistributions(){
+        ArrayList<Double> growthRates = new ArrayList<>(L);
+
+        for (int i = 0; i < L; i++){
+            growthRates.add(microhabitats[i].getGrowthRate());
+        }
+        return growthRates;
+    }
+
+    public ArrayList<Double> getNutrientDistribution(){
+        ArrayList<Double> sVals = new ArrayList<>(L);
+
+        for(int i = 0; i < L; i++){
+            sVals.add((double)microhabitats[i].getS());
+        }
+        return sVals;
+    }
+
+    //allocation-free versions of the distributions, filling the first L entries of out, which the caller can reuse
+
+    public void getSpatialDistribution(double[] out){
+        Arrays.fill(out, 0, L, 0.);
+        for(int i = occupiedFrom; i < occupiedTo; i++){
+            out[i] = microhabitats[i].getN();
+        }
+    }
+
+    public void getSpatialDistribution(int[] out){
+        Arrays.fill(out, 0, L, 0);
+        for(int i = occupiedFrom; i < occupiedTo; i++){
+            out[i] = microhabitats[i].getN();
+        }
+    }
+
+    public void getGrowthRateDistributions(double[] out){
+        for(int i = 0; i < L; i++){
+            out[i] = microhabitats[i].getGrowthRate();
+        }
+    }
+
+    public void getNutrientDistribution(double[] out){
+        for(int i = 0; i < L; i++){
+            out[i] = microhabitats[i].getS();
+        }
+    }
+
+    public void getNutrientDistribution(int[] out){
+        for(int i = 0; i < L; i++){
+            out[i] = microhabitats[i].getS();
+        }
+    }
+
+
+    public Microhabitat getMicrohabitat(int i){
+        return microhabitats[i];
+    }
+
+    public Bacteria getBacteria(int l, int k){
+        return microhabitats[l].getBacteria(k);
+    }
+
+    //the shared, read-only Bacteria describing the rates of genotype m
+    public Bacteria getBacteriaOfGenotype(int m){
+        return genotypes[m-1];
+    }
+
+    public void migrate(int currentL, int bacteriumIndex){
+
+        double direction = rand.nextDouble();
+
+        if(direction < 0.5 && currentL < (L - 1)) {
+
+
+            countMicrohabitat(currentL, -1);
+            countMicrohabitat(currentL + 1, -1);
+            int m = microhabitats[currentL].removeABacterium(bacteriumIndex);
+            microhabitats[currentL + 1].addABacterium(m);
+            countMicrohabitat(currentL, 1);
+            countMicrohabitat(currentL + 1, 1);
+            habitatPops.add(currentL, -1);
+            habitatPops.add(currentL + 1, 1);
+            engine.microhabitatChanged(currentL);
+            engine.microhabitatChanged(currentL + 1);
+            if(trace != null) trace.record(timeElapsed, currentL, EventTrace.MIGRATION, m, 1);
+
+        }else if(direction > 0.5 && currentL > (0)){
+
+            countMicrohabitat(currentL, -1);
+            countMicrohabitat(currentL - 1, -1);
+            int m = microhabitats[currentL].removeABacterium(bacteriumIndex);
+            microhabitats[currentL - 1].addABacterium(m);
+            countMicrohabitat(currentL, 1);
+            countMicrohabitat(currentL - 1, 1);
+            habitatPops.add(currentL, -1);
+            habitatPops.add(currentL - 1, 1);
+            engine.microhabitatChanged(currentL);
+            engine.microhabitatChanged(currentL - 1);
+            if(trace != null) trace.record(timeElapsed, currentL, EventTrace.MIGRATION, m, -1);
+        }
+    }
+
+    public void die(int currentL, int bacteriumIndex){
+
+        countMicrohabitat(currentL, -1);
+        int m = microhabitats[currentL].removeABacterium(bacteriumIndex);
+        countMicrohabitat(currentL, 1);
+        habitatPops.add(currentL, -1);
+        engine.microhabitatChanged(currentL);
+        if(trace != null) trace.record(timeElapsed, currentL, EventTrace.DEATH, m, 1);
+        if(habitatPops.getTotal() == 0) populationDead = true;
+    }
+
+
+    public void replicate(int currentL, int bacteriumIndex){
+        countMicrohabitat(currentL, -1);
+        //a nutrient unit is consumed for every replication
+        microhabitats[currentL].consumeNutrients();
+        if(transport != null) transport.nutrientsChanged(currentL);
+        //the genotype of the bacterium which is going to be replicated and its associated properties
+        int m = microhabitats[currentL].getGenotypeOf(bacteriumIndex);
+        Bacteria parentBac = genotypes[m-1];
+
+        double mu = parentBac.getMu();
+        double s = rand.nextDouble();
+
+        int childM = m;
+        if(s < mu/2.) {
+            if(childM < parentBac.getFinalM()) childM++;
+        } else if(s >= mu/2. && s < mu) {
+            if(childM > 1) childM--;
+        }
+        microhabitats[currentL].addABacterium(childM);
+        countMicrohabitat(currentL, 1);
+        habitatPops.add(currentL, 1);
+        engine.microhabitatChanged(currentL);
+        if(trace != null) trace.record(timeElapsed, currentL, EventTrace.REPLICATION, childM, 1);
+
+    }
+
+
+    //applies a batch of changes to microhabitat i at once, used by engines which leap over many events and
+    //by the nutrient transport. countDeltas[m-1] is the change in the no. of bacteria of genotype m, and
+    //nutrientsConsumed is negative if nutrients were added.
+    void updateMicrohabitat(int i, int[] countDeltas, int nutrientsConsumed){
+
+        countMicrohabitat(i, -1);
+        Microhabitat m = microhabitats[i];
+        int deltaN = 0;
+        for(int g = 1; g <= countDeltas.length; g++){
+            int delta = countDeltas[g-1];
+            if(delta != 0){
+                m.setGenotypeCount(g, m.getGenotypeCount(g) + delta);
+                deltaN += delta;
+            }
+        }
+        if(nutrientsConsumed != 0){
+            m.setS(m.getS() - nutrientsConsumed);
+            if(transport != null) transport.nutrientsChanged(i);
+        }
+        countMicrohabitat(i, 1);
+        if(deltaN != 0) habitatPops.add(i, deltaN);
+
+        if(trace != null){
+            for(int g = 1; g <= countDeltas.length; g++){
+                if(countDeltas[g-1] != 0) trace.record(timeElapsed, i, EventTrace.COUNT_CHANGE, g, countDeltas[g-1]);
+            }
+            if(nutrientsConsumed != 0) trace.record(timeElapsed, i, EventTrace.NUTRIENTS, 0, nutrientsConsumed);
+        }
+
+        engine.microhabitatChanged(i);
+        if(habitatPops.getTotal() == 0) populationDead = true;
+    }
+
+
+    public void performAction(){
+
+        if(!populationDead){
+            //samples due now are taken before the event. The rejection engine only moves the clock on once
+            //its event has happened, so it would otherwise record the t = 0 sample after the first event.
+            if(timeElapsed >= nextSampleTime) sampleUpTo(timeElapsed);
+            engine.performAction();
+            //the nutrients move between events, so no engine sees them change part way through one
+            if(transport != null) transport.catchUp(this);
+        }
+    }
+
+    //runs until the clock passes duration, the population dies out or any of the conditions are met
+    public void run(double duration, TerminationCondition... conditions){
+
+        while(timeElapsed <= duration && !populationDead){
+            performAction();
+            for(TerminationCondition condition : conditions){
+                if(condition.isMet(this)) return;
+            }
+        }
+    }
+
+
+    //the full state of the system in a compact binary form: the parameters, the clock, the RNG state, the
+    //nutrients and genotype counts of every microhabitat and the nutrient transport, if there is one.
+    //The event engine isn't part of the state, a restored system starts with the RejectionEngine and the
+    //caller attaches whichever engine it used. The exact engines carry on exactly as the run would have,
+    //tau-leaping doesn't (see TauLeapEngine).
+    public ByteBuffer toSnapshot(){
+
+        int finalM = params.getFinalM();
+        int habitatBytes = 8 + 4*3;
+        int transportBytes = 1 + ((transport != null) ? transport.snapshotBytes() : 0);
+        //the genotype counts are only written for the occupied region, the rest are all zero
+        ByteBuffer buffer = ByteBuffer.allocate(4*8 + 8*4 + 8*4*finalM + 8*3 + 1 + 8*4 + 4*2 + L*habitatBytes
+                + (occupiedTo - occupiedFrom)*4*finalM + transportBytes);
+
+        buffer.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION);
+        buffer.putInt(L).putInt(K).putInt(s).putInt(s_max).putInt(finalM).putInt(0);
+        buffer.putDouble(params.getB()).putDouble(params.getD()).putDouble(params.getMu()).putDouble(params.getK_prime());
+        for(int m = 1; m <= finalM; m++){
+            buffer.putDouble(params.getB(m)).putDouble(params.getD(m)).putDouble(params.getMicScale(m)).putDouble(params.getGrowthPenalty(m));
+        }
+        buffer.putDouble(c).putDouble(alpha).putDouble(timeElapsed);
+        buffer.put((byte)(populationDead ? 1 : 0));
+        buffer.putLong(rand.getMasterSeed()).putLong(rand.getStreamIndex()).putLong(rand.getState()).putLong(rand.getGamma());
+        buffer.putInt(occupiedFrom).putInt(occupiedTo);
+
+        for(Microhabitat m : microhabitats){
+            buffer.putDouble(m.getC()).putInt(m.getS()).putInt(m.getS_max()).putInt(m.getK());
+        }
+        for(int i = occupiedFrom; i < occupiedTo; i++){
+            for(int g = 1; g <= finalM; g++){
+                buffer.putInt(microhabitats[i].getGenotypeCount(g));
+            }
+        }
+        buffer.put((byte)(transport != null ? 1 : 0));
+        if(transport != null) transport.writeSnapshot(buffer);
+        buffer.flip();
+        return buffer;
+    }
+
+    public static BioSystem fromSnapshot(ByteBuffer buffer){
+
+        if(buffer.getInt() != SNAPSHOT_MAGIC) throw new IllegalArgumentException("not a BioSystem snapshot");
+        int version = buffer.getInt();
+        //version 1 snapshots were written before the parameters could be changed, so they used the defaults.
+        //versions 1 and 2 hold the genotype counts of every microhabitat, next to the rest of its state.
+        //versions before 4 were written before the genotypes could have their own rates, and versions before 5
+        //before the nutrient transport was part of the state.
+        if(version < 1 || version > SNAPSHOT_VERSION) throw new IllegalArgumentException("unsupported snapshot version " + version);
+
+        BioSystem bs = new BioSystem();
+        bs.L = buffer.getInt();
+        bs.K = buffer.getInt();
+        bs.s = buffer.getInt();
+        bs.s_max = buffer.getInt();
+        int finalM = buffer.getInt();
+        buffer.getInt();
+        if(version == 1){
+            bs.params = SimParameters.DEFAULT.withFinalM(finalM).withK(bs.K);
+        }else{
+            double b = buffer.getDouble(), d = buffer.getDouble(), mu = buffer.getDouble(), K_prime = buffer.getDouble();
+            bs.params = new SimParameters(b, d, mu, K_prime, finalM, bs.K);
+        }
+        if(version >= 4){
+            double[] genotypeB = new double[finalM], genotypeD = new double[finalM];
+            double[] micScales = new double[finalM], growthPenalties = new double[finalM];
+            for(int g = 0; g < finalM; g++){
+                genotypeB[g] = buffer.getDouble();
+                genotypeD[g] = buffer.getDouble();
+                micScales[g] = buffer.getDouble();
+                growthPenalties[g] = buffer.getDouble();
+            }
+            bs.params = bs.params.withMigrationRates(genotypeB).withDeathRates(genotypeD)
+                    .withMicScales(micScales).withGrowthPenalties(growthPenalties);
+        }
+
+        bs.c = buffer.getDouble();
+        bs.alpha = buffer.getDouble();
+        bs.timeElapsed = buffer.getDouble();
+        bs.populationDead = (buffer.get() != 0);
+        long masterSeed = buffer.getLong(), streamIndex = buffer.getLong();
+        bs.rand = SimRandom.fromState(masterSeed, streamIndex, buffer.getLong(), buffer.getLong());
+
+        int countsFrom = 0, countsTo = bs.L;
+        if(version >= 3){
+            countsFrom = buffer.getInt();
+            countsTo = buffer.getInt();
+        }
+
+        bs.microhabitats = new Microhabitat[bs.L];
+        for(int i = 0; i < bs.L; i++){
+            double c_i = buffer.getDouble();
+            int s_i = buffer.getInt(), s_max_i = buffer.getInt(), K_i = buffer.getInt();
+
+            Microhabitat m = new Microhabitat(c_i, s_max_i, bs.params);
+            m.setS(s_i);
+            m.setK(K_i);
+            if(version < 3){
+                for(int g = 1; g <= finalM; g++){
+                    m.setGenotypeCount(g, buffer.getInt());
+                }
+            }
+            bs.microhabitats[i] = m;
+        }
+        if(version >= 3){
+            for(int i = countsFrom; i < countsTo; i++){
+                for(int g = 1; g <= finalM; g++){
+                    bs.microhabitats[i].setGenotypeCount(g, buffer.getInt());
+                }
+            }
+        }
+
+        bs.buildGenotypes();
+        bs.buildPopulationIndex();
+        bs.setEventEngine(new RejectionEngine());
+        if(version >= 5 && buffer.get() != 0) bs.transport = NutrientTransport.fromSnapshot(buffer, bs);
+        return bs;
+    }
+
+/////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    public static void antibioticVsNutrients(){
+        antibioticVsNutrients(new JobSpec(JobSpec.C_VS_S));
+    }
+
+    //settings the job doesn't give keep the values below
+    public static void antibioticVsNutrients(final JobSpec job){
+
+        int nReps = job.getInt("reps", 2);
+        final int L = job.getInt("L", 500);
+        final double duration = job.getDouble("duration", 500.);
+        //replicates run to duration unless the job gives steadyInterval, then they stop early once the population
+        //averaged over steadyWindow samples, steadyInterval apart, changes by less than steadyTolerance
+        final boolean steady = job.has("steadyInterval");
+        final double steadyInterval = job.getDouble("steadyInterval", 10.), steadyTolerance = job.getDouble("steadyTolerance", 0.005);
+        final int steadyWindow = job.getInt("steadyWindow", 5);
+        final SimParameters params = job.getParameters();
+        //with takeover=f each replicate measures the time until the final genotype is a fraction f of the population
+        final MutantTakeoverCondition takeover = job.createTakeoverCondition();
+        String filename = job.getString("output", "slowGrowers_nutrients_vs_antibiotic");
+
+        final ArrayList<Double> sVals = new ArrayList<Double>();
+        final ArrayList<Double> cVals = new ArrayList<Double>();
+
+        int initS = job.getInt("sMin", JobSpec.S_MIN), finalS = job.getInt("sMax", JobSpec.S_MAX);
+        int sIncrement = Math.max((finalS - initS)/job.getInt("sPoints", JobSpec.POINTS), 1);
+
+        double[] cAxis = gridAxis(job.getDouble("cMin", JobSpec.C_MIN), job.getDouble("cMax", JobSpec.C_MAX), job.getInt("cPoints", JobSpec.POINTS));
+
+        //the grid is laid out the same way the serial loops built it, so sVals is repeated for each c
+        for(double c : cAxis) {
+            cVals.add(c);
+            for(int s = initS; s <= finalS; s += sIncrement) {
+                sVals.add((double) s);
+            }
+        }
+        final int nS = sVals.size()/cVals.size();
+
+        SweepExecutor executor = job.createExecutor();
+        System.out.println("threads: " + executor.getNThreads() + "\t seed: " + executor.getMasterSeed());
+
+        double[][][] results = executor.run(cVals.size(), nS, nReps, new SweepExecutor.Replicate() {
+            public double run(int i, int j, int r, SimRandom rand){
+                double c = cVals.get(i);
+                int s = (int)(double)sVals.get(j);
+
+                BioSystem bs = new BioSystem(params, L, s, c, "uniform");
+                bs.setRand(rand);
+                bs.setNutrientTransport(job.createTransport());
+
+                if(takeover != null){
+                    double takeoverTime = timeToTakeover(bs, duration, takeover);
+                    System.out.println(takeoverTime + "\t sVal: " + s + "\t cVal: " + c + "\t rep: " + r);
+                    return takeoverTime;
+                }
+
+                if(steady) bs.run(duration, new SteadyStateCondition(bs, steadyInterval, steadyWindow, steadyTolerance));
+                else bs.run(duration);
+
+                System.out.println(bs.getCurrentPopulation() + "\t sVal: " + s + "\t cVal: " + c + "\t rep: " + r);
+                return bs.getCurrentPopulation();
+            }
+        });
+
+        double[] popVals = SweepExecutor.averageOverReps(results);
+
+        Toolbox.writeContoursToFile(Toolbox.toArray(cVals), Toolbox.toArray(sVals), popVals, filename,
+                "master seed " + executor.getMasterSeed() + measuredQuantity(takeover, job));
+    }
+
+
+    public static void antibioticGradientVsNutrients(){
+        antibioticGradientVsNutrients(new JobSpec(JobSpec.ALPHA_VS_S));
+    }
+
+    //settings the job doesn't give keep the values below
+    public static void antibioticGradientVsNutrients(final JobSpec job){
+
+        int nReps = job.getInt("reps", 5);
+        final int L = job.getInt("L", 500);
+        final double duration = job.getDouble("duration", 500.);
+        //replicates run to duration unless the job gives steadyInterval, then they stop early once the population
+        //averaged over steadyWindow samples, steadyInterval apart, changes by less than steadyTolerance.
+        //every grid point runs reps replicates unless the job gives precision, then it stops adding them once the
+        //mean is known to within that relative precision, with reps as the most it runs
+        final boolean steady = job.has("steadyInterval");
+        final double steadyInterval = job.getDouble("steadyInterval", 10.), steadyTolerance = job.getDouble("steadyTolerance", 0.005);
+        final int steadyWindow = job.getInt("steadyWindow", 5);
+        ReplicateStoppingRule stoppingRule = job.has("precision") ? new ReplicateStoppingRule(2, nReps, job.getDouble("precision", 0.05)) : null;
+        final SimParameters params = job.getParameters();
+        //with takeover=f each replicate measures the time until the final genotype is a fraction f of the population
+        final MutantTakeoverCondition takeover = job.createTakeoverCondition();
+        String filename = job.getString("output", "slowGrowers-gradVsNutrientsScaled");
+
+        final ArrayList<Double> sVals = new ArrayList<Double>();
+        final ArrayList<Double> alphaVals = new ArrayList<Double>();
+
+        int initS = job.getInt("sMin", JobSpec.S_MIN), finalS = job.getInt("sMax", JobSpec.S_MAX);
+        int sIncrement = Math.max((finalS - initS)/job.getInt("sPoints", JobSpec.POINTS), 1);
+
+        final double[] alphaAxis = gridAxis(job.getDouble("alphaMin", JobSpec.ALPHA_MIN), job.getDouble("alphaMax", JobSpec.ALPHA_MAX),
+                job.getInt("alphaPoints", JobSpec.POINTS));
+
+        //alphaVals is repeated for each s, as the contour writer expects
+        for(int s = initS; s <= finalS; s += sIncrement) {
+            sVals.add((double)s);
+            for(double alpha : alphaAxis) {
+                alphaVals.add(alpha);
+            }
+        }
+        final int nAlpha = alphaVals.size()/sVals.size();
+
+        //with ensemble=true the replicates of each point run together as an Ensemble, which is faster but
+        //always runs every replicate, so it can't stop once the mean is precise enough
+        boolean useEnsemble = Boolean.parseBoolean(job.getString("ensemble", "false"));
+        if(useEnsemble && !params.hasSharedRates()){
+            throw new IllegalArgumentException("ensemble=true needs every genotype to have the same rates");
+        }
+        if(useEnsemble && job.createTransport() != null){
+            throw new IllegalArgumentException("ensemble=true can't move nutrients, it needs them to only ever be used up");
+        }
+        if(useEnsemble && takeover != null){
+            throw new IllegalArgumentException("ensemble=true only measures the population, it can't be used with takeover");
+        }
+        if(useEnsemble && stoppingRule != null){
+            throw new IllegalArgumentException("ensemble=true always runs every replicate, it can't be used with precision");
+        }
+
+        //every finished replicate is kept in the result store, so an interrupted sweep picks up where it stopped
+        SweepExecutor executor = job.createExecutor();
+        //everything the replicates' results depend on apart from the seed, so a store left by a different sweep isn't reused
+        String sweep = JobSpec.ALPHA_VS_S + " L " + L + " duration " + duration + " " + params + " transport " + job.createTransport()
+                + " s " + sVals + " alpha " + Arrays.toString(alphaAxis) + " ensemble " + useEnsemble
+                + " steady " + (steady ? steadyInterval + " " + steadyWindow + " " + steadyTolerance : "none") + " takeover " + job.getString("takeover", "none");
+        SweepResultStore store = SweepResultStore.open(filename+"-results.bin", sVals.size(), nAlpha, nReps, sweep,
+                executor.getMasterSeed(), job.has("seed"));
+        executor.setResultStore(store);
+        System.out.println("threads: " + executor.getNThreads() + "\t seed: " + executor.getMasterSeed()
+                + "\t replicates already done: " + store.countDone());
+
+        double[][][] results;
+        try{
+            if(useEnsemble){
+                results = executor.runEnsembles(sVals.size(), nAlpha, nReps, new SweepExecutor.ReplicateEnsemble() {
+                    public double[] run(int i, int j, int[] reps, SimRandom[] rands){
+                        int s = (int)(double)sVals.get(i);
+                        double alpha = alphaVals.get(j);
+
+                        Ensemble ensemble = new Ensemble(params, L, s, alpha, rands);
+                        if(steady) ensemble.setSteadyState(steadyInterval, steadyWindow, steadyTolerance);
+                        ensemble.run(duration);
+
+                        for(int k = 0; k < reps.length; k++){
+                            System.out.println(ensemble.getPopulation(k) + "\t sVal: " + s + "\t alphaVal: " + alpha + "\t rep: " + reps[k]);
+                        }
+                        return ensemble.getPopulations();
+                    }
+                });
+            }else{
+                SweepExecutor.Replicate replicate = new SweepExecutor.Replicate() {
+                    public double run(int i, int j, int r, SimRandom rand){
+                        int s = (int)(double)sVals.get(i);
+                        double alpha = alphaVals.get(j);
+
+                        BioSystem bs = new BioSystem(params, L, s, alpha);
+                        bs.setRand(rand);
+                        bs.setNutrientTransport(job.createTransport());
+
+                        if(takeover != null){
+                            double takeoverTime = timeToTakeover(bs, duration, takeover);
+                            System.out.println(takeoverTime + "\t sVal: " + s + "\t alphaVal: " + alpha + "\t rep: " + r);
+                            return takeoverTime;
+                        }
+
+                        if(steady) bs.run(duration, new SteadyStateCondition(bs, steadyInterval, steadyWindow, steadyTolerance));
+                        else bs.run(duration);
+
+                        System.out.println(bs.getCurrentPopulation() + "\t sVal: " + s + "\t alphaVal: " + alpha + "\t rep: " + r);
+                        return bs.getCurrentPopulation();
+                    }
+                };
+                results = (stoppingRule == null) ? executor.run(sVals.size(), nAlpha, nReps, replicate)
+                        : executor.run(sVals.size(), nAlpha, stoppingRule, replicate);
+            }
+        }finally{
+            store.close();
+        }
+
+        double[] popVals = SweepExecutor.averageOverReps(results);
+
+        //populations are scaled by the population reached without any antibiotic gradient (the first alpha) at the same s.
+        //takeover times are written as they are.
+        for(int i = 0; i < sVals.size() && takeover == null; i++){
+            double maxPossPopulation = popVals[i*nAlpha];
+            for(int j = 0; j < nAlpha; j++){
+                popVals[i*nAlpha + j] /= maxPossPopulation;
+            }
+        }
+        Toolbox.writeGridToFile(Toolbox.toArray(sVals), alphaAxis, popVals, filename,
+                "master seed " + executor.getMasterSeed() + measuredQuantity(takeover, job));
+        //the sweep is complete and written out, so a later one with the same settings starts afresh
+        store.delete();
+    }
+
+    //the values of a sweep axis from min to max in the given no. of equal steps, or just min if the two are the
+    //same. Each value is worked out from its index, so rounding can't add or drop the last one.
+    private static double[] gridAxis(double min, double max, int points){
+        if(min == max) return new double[]{min};
+        double increment = (max - min)/points;
+        double[] axis = new double[points+1];
+        for(int k = 0; k <= points; k++) axis[k] = min + k*increment;
+        return axis;
+    }
+
+    //runs bs until the final genotype has taken over and returns the time it did, or duration if it doesn't
+    //by then (including when the population dies out first)
+    private static double timeToTakeover(BioSystem bs, double duration, MutantTakeoverCondition takeover){
+        bs.run(duration, takeover);
+        return takeover.isMet(bs) ? Math.min(bs.getTimeElapsed(), duration) : duration;
+    }
+
+    //what the values of a contour sweep are, for the header of its output
+    private static String measuredQuantity(MutantTakeoverCondition takeover, JobSpec job){
+        if(takeover == null) return "";
+        return ", time until the final genotype is a fraction " + job.getString("takeover", "") + " of the population";
+    }
+
+
+
+    //compares the tau-leaping engine against the exact Gillespie engine on a small system, printing the
+    //mean and standard error of the final population and nutrients for each over many replicates
+    public static void tauLeapValidation(double epsilon){
+
+        final int L = 20, K = 10, S = 500, nReps = 200;
+        final double c = 1.5, duration = 4.;
+
+        SweepExecutor executor = new SweepExecutor();
+        System.out.println("threads: " + executor.getNThreads() + "\t seed: " + executor.getMasterSeed() + "\t epsilon: " + epsilon);
+
+        final double tauEpsilon = epsilon;
+        //j = 0 is the exact engine, j = 1 the tau-leaping one. Each replicate returns its final population and nutrients.
+        double[][][][] results = executor.runMultiValue(1, 2, nReps, new SweepExecutor.MultiValueReplicate() {
+            public double[] run(int i, int j, int r, SimRandom rand){
+                BioSystem bs = new BioSystem(L, K, S, c, "uniform");
+                bs.setRand(rand);
+                bs.setEventEngine(j == 0 ? new GillespieEngine() : new TauLeapEngine(tauEpsilon, 1.));
+
+                while(bs.getTimeElapsed() <= duration && !bs.getPopulationDead()) bs.performAction();
+
+                return new double[]{bs.getCurrentPopulation(), bs.getCurrentNutrients()};
+            }
+        });
+
+        String[] names = {"exact", "tau-leap"};
+        for(int j = 0; j < 2; j++){
+            double popTotal = 0., popSq = 0., nutTotal = 0., nutSq = 0.;
+            for(double[] totals : results[0][j]){
+                double pop = totals[0], nut = totals[1];
+                popTotal += pop;
+                popSq += pop*pop;
+                nutTotal += nut;
+                nutSq += nut*nut;
+            }
+            double popMean = popTotal/nReps, nutMean = nutTotal/nReps;
+            double popErr = Math.sqrt((popSq/nReps - popMean*popMean)/nReps);
+            double nutErr = Math.sqrt((nutSq/nReps - nutMean*nutMean)/nReps);
+            System.out.println(names[j] + "\t population: " + popMean + " +/- " + popErr + "\t nutrients: " + nutMean + " +/- " + nutErr);
+        }
+    }
+
+
+
+    //this was modified to also plot the growth rates and nutrient distributions over time
+    public static void spatialAndNutrientDistributions(double input_alpha){
+        spatialAndNutrientDistributions(input_alpha, "text");
+    }
+
+    //all of the snapshots of the run are streamed to one file, format is "text" or "binary"
+    public static void spatialAndNutrientDistributions(double input_alpha, String format){
+        spatialAndNutrientDistributions(new JobSpec(JobSpec.SPATIAL).set("alpha", String.valueOf(input_alpha)).set("format", format));
+    }
+
+    //settings the job doesn't give keep the values below
+    public static void spatialAndNutrientDistributions(JobSpec job){
+
+        int L = job.getInt("L", 500);
+        double interval = job.getDouble("interval", 100.);
+        double duration = job.getDouble("duration", 2000.);
+        double checkpointInterval = job.getDouble("checkpointInterval", 10.);
+        double alpha = job.getDouble("alpha", 0.02);
+        int S = job.getInt("S", 500);
+        String format = job.getString("format", "text");
+
+        String filename = job.getString("output", "slowGrowers-alpha-"+String.valueOf(alpha)+"-distributions");
+        //the rows of each series are indexed by these
+        final int POPULATION = 0, GROWTH_RATE = 1, NUTRIENTS = 2;
+        String[] seriesNames = {"population", "growthRate", "nutrients"};
+
+        //picks up from the last checkpoint if a previous run of this was killed
+        Checkpointer checkpointer = new Checkpointer(filename+"-checkpoint.bin", checkpointInterval);
+        BioSystem bs;
+        try{
+            bs = checkpointer.resume();
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+        boolean resumed = (bs != null);
+        //a resumed run carries on with the nutrient transport saved in the checkpoint
+        if(bs == null){
+            bs = new BioSystem(job.getParameters(), L, S, alpha);
+            bs.setRand(job.createRandom());
+            bs.setNutrientTransport(job.createTransport());
+        }
+
+        //a resumed run cuts the file back to where it was at the checkpoint, so the rows sampled between the
+        //checkpoint and the run being killed aren't written twice, then carries on appending to it
+        long sinkLength = -1L;
+        if(resumed) sinkLength = (checkpointer.getSavedLength(0) >= 0) ? checkpointer.getSavedLength(0) : Long.MAX_VALUE;
+        final TimeSeriesSink sink = Toolbox.openTimeSeries(filename, format, seriesNames,
+                bs.getRand().describe() + ", alpha " + alpha + ", L " + L + ", S " + S, sinkLength);
+        checkpointer.addOutput(sink);
+
+        //with trace=file every change is logged, so TraceReplay can rebuild the state at any time afterwards.
+        //a resumed run carries on with the trace from the checkpoint, or starts a new one from the state it
+        //resumed from if the checkpoint doesn't have the trace's length.
+        EventTrace trace = null;
+        if(job.has("trace")){
+            try{
+                trace = new EventTrace(job.getString("trace", null), bs, resumed ? checkpointer.getSavedLength(1) : -1L);
+            }catch(IOException e){
+                throw new UncheckedIOException(e);
+            }
+            bs.setTrace(trace);
+            checkpointer.addOutput(trace);
+        }
+
+        //one buffer reused for every row, so sampling doesn't allocate
+        final double[] values = new double[L];
+        //samples up to the checkpoint's time were all taken before it, including one right at that time
+        final double resumedAt = resumed ? bs.getTimeElapsed() : -1.;
+
+        bs.addObserver(new SampleObserver() {
+            public void sample(BioSystem bs, double sampleTime){
+                if(sampleTime <= resumedAt) return;
+
+                System.out.println("Success "+(int)sampleTime);
+
+                bs.getSpatialDistribution(values);
+                sink.writeRow(sampleTime, POPULATION, values);
+                bs.getGrowthRateDistributions(values);
+                sink.writeRow(sampleTime, GROWTH_RATE, values);
+                bs.getNutrientDistribution(values);
+                sink.writeRow(sampleTime, NUTRIENTS, values);
+                sink.flush();
+            }
+        }, interval, duration);
+
+        while(bs.getTimeElapsed() <= duration && !bs.getPopulationDead()){
+            bs.performAction();
+            checkpointer.update(bs);
+        }
+        sink.close();
+        try{
+            if(trace != null) trace.close(bs);
+            checkpointer.close(true);
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+        System.out.println("duration "+bs.getTimeElapsed());
+
+    }
+
+
+}
\ No newline at end of file
@@ -0,0 +1,141 @@
+package slowgrowers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+public class Checkpointer {
+
+    //periodically writes BioSystem snapshots so a killed run can be resumed from the last one.
+    //the snapshot is taken on the simulation thread (an O(L) copy), the file itself is written on a
+    //background thread to a temporary file which then replaces the checkpoint atomically, so a crash
+    //mid-write never leaves a broken checkpoint behind.
+    //
+    //file layout: the snapshot, then the no. of outputs and the length of each when the snapshot was taken.
+    //Checkpoints written before the outputs were recorded end after the snapshot.
+    private Path path, tmpPath;
+    private double interval, nextCheckpointTime;
+    private ExecutorService writer;
+    private volatile IOException lastFailure;
+
+    //the files written alongside the run, and their lengths at the checkpoint the run resumed from
+    private ArrayList<Output> outputs = new ArrayList<Output>();
+    private long[] savedLengths = new long[0];
+
+    //a file the run writes as it goes, e.g. its samples. Its length is saved with every checkpoint, so a
+    //resumed run can cut off whatever was written after the checkpoint and carry on from there, rather
+    //than writing those parts of the run a second time.
+    public interface Output {
+        //writes out everything so far and returns the length of the file
+        long sync();
+    }
+
+    public Checkpointer(String filename, double interval){
+        this.path = Paths.get(filename);
+        this.tmpPath = Paths.get(filename + ".tmp");
+        this.interval = interval;
+        this.nextCheckpointTime = interval;
+
+        this.writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r){
+                Thread t = new Thread(r, "checkpoint-writer");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    //returns the system saved in the checkpoint, or null if there isn't one to resume from
+    public BioSystem resume() throws IOException{
+        if(!Files.exists(path)) return null;
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        BioSystem bs = BioSystem.fromSnapshot(buffer);
+        if(buffer.remaining() >= 4){
+            savedLengths = new long[buffer.getInt()];
+            for(int k = 0; k < savedLengths.length; k++){
+                savedLengths[k] = buffer.getLong();
+            }
+        }
+        nextCheckpointTime = (Math.floor(bs.getTimeElapsed()/interval) + 1.)*interval;
+        System.out.println("resumed from " + path + " at time " + bs.getTimeElapsed());
+        return bs;
+    }
+
+    //outputs are numbered in the order they're added, which has to be the same every time the run is resumed
+    public void addOutput(Output output){
+        outputs.add(output);
+    }
+
+    //the length output k had at the checkpoint resumed from, or -1 if the checkpoint doesn't record it
+    public long getSavedLength(int k){
+        return (k < savedLengths.length) ? savedLengths[k] : -1L;
+    }
+
+    //call after every event, only takes a snapshot once the clock has passed the next checkpoint time
+    public void update(BioSystem bs){
+        if(bs.getTimeElapsed() < nextCheckpointTime) return;
+
+        while(nextCheckpointTime <= bs.getTimeElapsed()) nextCheckpointTime += interval;
+        checkpoint(bs);
+    }
+
+    //a write which failed in the background is thrown here, at the next checkpoint, rather than only when
+    //the run finishes
+    public void checkpoint(BioSystem bs){
+        if(lastFailure != null) throw new UncheckedIOException("couldn't write checkpoint " + path, lastFailure);
+
+        final ByteBuffer snapshot = bs.toSnapshot();
+        final ByteBuffer lengths = ByteBuffer.allocate(4 + 8*outputs.size());
+        lengths.putInt(outputs.size());
+        for(Output output : outputs){
+            lengths.putLong(output.sync());
+        }
+        lengths.flip();
+
+        writer.execute(new Runnable() {
+            public void run(){
+                try{
+                    write(snapshot, lengths);
+                }catch(IOException e){
+                    lastFailure = e;
+                }
+            }
+        });
+    }
+
+    private void write(ByteBuffer snapshot, ByteBuffer lengths) throws IOException{
+        FileChannel channel = FileChannel.open(tmpPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try{
+            while(snapshot.hasRemaining()) channel.write(snapshot);
+            while(lengths.hasRemaining()) channel.write(lengths);
+            channel.force(true);
+        }finally{
+            channel.close();
+        }
+        Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    //waits for any pending writes. If the run finished, the checkpoint is no longer needed and is deleted.
+    public void close(boolean runFinished) throws IOException{
+        writer.shutdown();
+        try{
+            writer.awaitTermination(1, TimeUnit.MINUTES);
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        if(lastFailure != null) throw lastFailure;
+        if(runFinished) Files.deleteIfExists(path);
+    }
+}
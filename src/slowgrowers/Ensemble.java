@@ -0,0 +1,252 @@
+package slowgrowers;
+
+public class Ensemble {
+
+    //R replicates of the same exponential gradient run side by side, with all of their state held in flat
+    //arrays indexed [replicate][microhabitat] (and [genotype] for the counts) rather than in a BioSystem
+    //and L Microhabitat objects each. The c^2 of every microhabitat and the nutrient table are shared.
+    //the replicates advance together in rounds of simulated time; in each round every replicate still
+    //running carries out events until its clock reaches the end of the round.
+    //
+    //the process is the RejectionEngine's: every step picks a bacterium uniformly, compares a draw in
+    //[0, R_max) against its rates and advances the clock by 1/(N*R_max). Rather than taking the null
+    //steps one at a time, the no. of them before the next real event is drawn directly from its geometric
+    //distribution, with success probability A/(N*R_max) where A is the total propensity, and the event is
+    //then picked in proportion to the propensities, kept in a SumTree per replicate. The null steps don't
+    //change anything but the clock, so the trajectories have the same distribution as a BioSystem's with
+    //the RejectionEngine, including the steady state test of SteadyStateCondition, without paying for
+    //the null events (most of the steps once the gradient is established).
+    private final int R, L, finalM;
+    private final double b, d, mu, R_max;
+    private final double[] cSquared;
+    private final NutrientTable nutrientTable;
+    private final SimRandom[] rands;
+
+    //genotypeCounts[(r*L + i)*finalM + g-1], the population, nutrients and cached replication rate of
+    //microhabitat i of replicate r at r*L + i
+    private final int[] genotypeCounts, habitatN, nutrients;
+    private final double[] growthRates;
+    //the microhabitat propensities of each replicate
+    private final SumTree[] propensities;
+
+    private final int[] populations;
+    private final double[] times;
+    private final boolean[] finished;
+
+    //steady state test of each replicate, off unless setSteadyState is called
+    private double steadyInterval = 0.;
+    private SteadyStateCondition[] steadyStates;
+    //the no. of intervals the next sample of each replicate lies at, sample times are always a whole no. of intervals
+    private double[] sampleIntervals;
+
+    public Ensemble(SimParameters params, int L, int S, double alpha, SimRandom[] rands){
+
+        //the propensities are kept per microhabitat, which needs every genotype to have the same rates
+        if(!params.hasSharedRates()) throw new IllegalArgumentException("an Ensemble needs every genotype to have the same rates: " + params);
+
+        this.R = rands.length;
+        this.L = L;
+        this.finalM = params.getFinalM();
+        this.b = params.getB();
+        this.d = params.getD();
+        this.mu = params.getMu();
+        this.rands = rands;
+        this.nutrientTable = NutrientTable.forS_max(S, params.getK_prime());
+
+        cSquared = new double[L];
+        double maxGrowthRate = 0.;
+        for(int i = 0; i < L; i++){
+            double c_i = Math.exp(alpha*(double)i) - 1.;
+            cSquared[i] = c_i*c_i;
+            maxGrowthRate = Math.max(maxGrowthRate, nutrientTable.replicationRate(cSquared[i], S));
+        }
+        //the same bound as the RejectionEngine: every genotype has the same b and d, and rates only fall as nutrients are used
+        this.R_max = b + d + maxGrowthRate;
+
+        genotypeCounts = new int[R*L*finalM];
+        habitatN = new int[R*L];
+        nutrients = new int[R*L];
+        growthRates = new double[R*L];
+        propensities = new SumTree[R];
+        populations = new int[R];
+        times = new double[R];
+        finished = new boolean[R];
+
+        int K = params.getK();
+        for(int r = 0; r < R; r++){
+            propensities[r] = new SumTree(L);
+            for(int i = 0; i < L; i++){
+                nutrients[r*L + i] = S;
+                growthRates[r*L + i] = nutrientTable.replicationRate(cSquared[i], S);
+            }
+            //K wild type bacteria in the first microhabitat
+            genotypeCounts[r*L*finalM] = K;
+            habitatN[r*L] = K;
+            populations[r] = K;
+            updatePropensity(r, 0);
+            finished[r] = (K == 0);
+        }
+    }
+
+    //stops a replicate once its population averaged over the latest window samples, taken every interval,
+    //is within a relative tolerance of the average over the window before, with a SteadyStateCondition each
+    public void setSteadyState(double interval, int window, double tolerance){
+        if(interval <= 0.) throw new IllegalArgumentException("sampling interval must be positive: " + interval);
+
+        this.steadyInterval = interval;
+        this.steadyStates = new SteadyStateCondition[R];
+        this.sampleIntervals = new double[R];
+        for(int r = 0; r < R; r++){
+            steadyStates[r] = new SteadyStateCondition(window, tolerance);
+            sampleIntervals[r] = Math.ceil(times[r]/interval);
+        }
+    }
+
+    public int getNReplicates(){return R;}
+    public int getL(){return L;}
+    public int getPopulation(int r){return populations[r];}
+    public double getTimeElapsed(int r){return times[r];}
+
+    //no. of bacteria of genotype m in microhabitat i of replicate r
+    public int getGenotypeCount(int r, int i, int m){
+        return genotypeCounts[(r*L + i)*finalM + m-1];
+    }
+
+    public int getNutrients(int r, int i){
+        return nutrients[r*L + i];
+    }
+
+    public double[] getPopulations(){
+        double[] pops = new double[R];
+        for(int r = 0; r < R; r++) pops[r] = populations[r];
+        return pops;
+    }
+
+    //runs every replicate until its clock passes duration, its population dies out or it reaches steady state
+    public void run(double duration){
+
+        double roundLength = (steadyInterval > 0.) ? steadyInterval : 1.;
+        boolean running = true;
+
+        for(int round = 1; running; round++){
+            double roundEnd = round*roundLength;
+            running = false;
+
+            for(int r = 0; r < R; r++){
+                while(!finished[r] && times[r] < roundEnd){
+                    if(times[r] > duration){
+                        finished[r] = true;
+                        break;
+                    }
+                    performAction(r, duration);
+                }
+                if(!finished[r]) running = true;
+            }
+        }
+    }
+
+    //the null steps up to and including the next real event of replicate r
+    private void performAction(int r, double duration){
+
+        SimRandom rand = rands[r];
+        double totalPropensity = propensities[r].getTotal();
+        double step = 1./((double)populations[r]*R_max);
+
+        //no. of null steps before the next real event
+        double acceptance = totalPropensity/((double)populations[r]*R_max);
+        double nullSteps;
+        if(acceptance >= 1.) nullSteps = 0.;
+        else if(acceptance <= 0.) nullSteps = Double.POSITIVE_INFINITY;
+        else nullSteps = Math.floor(Math.log(1. - rand.nextDouble())/Math.log1p(-acceptance));
+
+        //the run stops at the first step which takes the clock past duration, which may be a null one
+        double stepsToEnd = Math.floor((duration - times[r])/step) + 1.;
+        if(nullSteps >= stepsToEnd){
+            advanceTime(r, times[r] + stepsToEnd*step);
+            finished[r] = true;
+            return;
+        }
+        advanceTime(r, times[r] + nullSteps*step);
+        if(finished[r]) return;
+
+        //the microhabitat of the event, in proportion to its propensity, then any bacterium in it
+        int i = propensities[r].find(rand.nextDouble()*totalPropensity);
+        int habitat = r*L + i;
+        int countsOffset = habitat*finalM;
+        int bacteriaIndex = rand.nextInt(habitatN[habitat]);
+
+        double rando = rand.nextDouble()*(b + d + growthRates[habitat]);
+
+        if(rando < b){
+            double direction = rand.nextDouble();
+            if(direction < 0.5 && i < L-1) moveBacterium(r, i, i+1, bacteriaIndex);
+            else if(direction > 0.5 && i > 0) moveBacterium(r, i, i-1, bacteriaIndex);
+
+        }else if(rando < (b + d)){
+            genotypeCounts[countsOffset + genotypeOf(countsOffset, bacteriaIndex) - 1]--;
+            habitatN[habitat]--;
+            populations[r]--;
+            updatePropensity(r, i);
+            if(populations[r] == 0) finished[r] = true;
+
+        }else{
+            if(nutrients[habitat] > 0){
+                nutrients[habitat]--;
+                growthRates[habitat] = nutrientTable.replicationRate(cSquared[i], nutrients[habitat]);
+            }
+            int m = genotypeOf(countsOffset, bacteriaIndex);
+            double s = rand.nextDouble();
+            int childM = m;
+            if(s < mu/2.){
+                if(childM < finalM) childM++;
+            }else if(s >= mu/2. && s < mu){
+                if(childM > 1) childM--;
+            }
+            genotypeCounts[countsOffset + childM - 1]++;
+            habitatN[habitat]++;
+            populations[r]++;
+            updatePropensity(r, i);
+        }
+
+        //the step of the real event is taken with the population after it, as in the RejectionEngine
+        double newTime = times[r] + ((populations[r] > 0) ? 1./((double)populations[r]*R_max) : Double.POSITIVE_INFINITY);
+        if(!finished[r]) advanceTime(r, newTime);
+        else times[r] = newTime;
+    }
+
+    //moves replicate r's clock on, taking any steady state samples due on the way with the current state
+    private void advanceTime(int r, double newTime){
+        if(steadyInterval > 0.){
+            while(sampleIntervals[r]*steadyInterval <= newTime && !finished[r]){
+                sampleIntervals[r]++;
+                if(steadyStates[r].addSample(populations[r])) finished[r] = true;
+            }
+        }
+        times[r] = newTime;
+    }
+
+    private void moveBacterium(int r, int from, int to, int bacteriaIndex){
+        int fromOffset = (r*L + from)*finalM;
+        int m = genotypeOf(fromOffset, bacteriaIndex);
+        genotypeCounts[fromOffset + m-1]--;
+        genotypeCounts[(r*L + to)*finalM + m-1]++;
+        habitatN[r*L + from]--;
+        habitatN[r*L + to]++;
+        updatePropensity(r, from);
+        updatePropensity(r, to);
+    }
+
+    private int genotypeOf(int countsOffset, int bacteriaIndex){
+        int m = 0;
+        while(bacteriaIndex >= genotypeCounts[countsOffset + m]){
+            bacteriaIndex -= genotypeCounts[countsOffset + m];
+            m++;
+        }
+        return m+1;
+    }
+
+    private void updatePropensity(int r, int i){
+        int habitat = r*L + i;
+        propensities[r].set(i, habitatN[habitat]*(b + d + growthRates[habitat]));
+    }
+}
@@ -0,0 +1,13 @@
+package slowgrowers;
+
+public interface EventEngine {
+
+    //called when the engine is attached to a BioSystem, and whenever the state of the system is changed wholesale
+    void initialise(BioSystem bs);
+
+    //called by the BioSystem whenever the population or nutrients of microhabitat i have changed
+    void microhabitatChanged(int i);
+
+    //carries out a single event and advances the clock of the BioSystem
+    void performAction();
+}
@@ -0,0 +1,168 @@
+package slowgrowers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+public class EventTrace implements Checkpointer.Output {
+
+    //a log of every change a BioSystem goes through, enough to rebuild its state at any time with
+    //TraceReplay rather than by simulating it again. The file starts with a snapshot of the system
+    //when tracing began, followed by one fixed-size record per change. Null events aren't recorded.
+    //records are collected in a ring of buffers; a full buffer is written out through a FileChannel
+    //on a background thread while the next one fills, so the simulation thread only blocks if the
+    //writer falls a whole ring behind.
+    //a run resumed from a checkpoint carries on with the same trace: its length is saved with the checkpoint
+    //(see Checkpointer.Output), and the resumed run cuts it back to that length and appends from there.
+    //
+    //file layout (little-endian): magic, version, snapshot length, snapshot, then the records.
+    //record (RECORD_BYTES): double time, int microhabitat, byte type, byte genotype, short unused, int count.
+    //the time is the clock when the change was made, so samples taken during replay see the same states
+    //as the ones taken during the run.
+    static final int MAGIC = 0x54524143, VERSION = 1;
+    static final int RECORD_BYTES = 20;
+
+    //count = +1 for a move to microhabitat + 1, -1 for a move to microhabitat - 1
+    public static final byte MIGRATION = 0;
+    //count = 1
+    public static final byte DEATH = 1;
+    //a child of the genotype given, count = 1; it consumed a nutrient if there were any left
+    public static final byte REPLICATION = 2;
+    //a batch change from an engine which leaps over many events, count = change in the no. of the genotype
+    public static final byte COUNT_CHANGE = 3;
+    //nutrients used up by a batch change, count = no. consumed, or minus the no. added by the nutrient transport
+    public static final byte NUTRIENTS = 4;
+    //the last record, at the time the trace was closed
+    public static final byte END = 5;
+
+    private static final int RING_SIZE = 4, BUFFER_RECORDS = 8192;
+
+    private FileChannel channel;
+    private ByteBuffer current;
+    private ArrayBlockingQueue<ByteBuffer> freeBuffers = new ArrayBlockingQueue<ByteBuffer>(RING_SIZE);
+    private ExecutorService writer;
+    private volatile IOException lastFailure;
+    private long nRecords;
+
+    //starts a trace of bs in filename, from its current state. Attach it with bs.setTrace.
+    public EventTrace(String filename, BioSystem bs) throws IOException{
+        this(filename, bs, -1L);
+    }
+
+    //with resumeAt >= 0 the trace carries on from the end of the one in filename, cut back to resumeAt bytes,
+    //its length at the checkpoint bs was restored from. resumeAt < 0 starts a new trace.
+    public EventTrace(String filename, BioSystem bs, long resumeAt) throws IOException{
+
+        if(resumeAt >= 0){
+            channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+            while(header.hasRemaining() && channel.read(header) >= 0){}
+            if(header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+                    || resumeAt < 12 + header.getInt(8) || resumeAt > channel.size()){
+                channel.close();
+                throw new IOException(filename + " isn't the trace this run was checkpointed with");
+            }
+            channel.truncate(resumeAt);
+            channel.position(resumeAt);
+            nRecords = (resumeAt - 12 - header.getInt(8))/RECORD_BYTES;
+        }else{
+            channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+            ByteBuffer snapshot = bs.toSnapshot();
+            ByteBuffer header = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(snapshot.remaining());
+            header.flip();
+            while(header.hasRemaining()) channel.write(header);
+            while(snapshot.hasRemaining()) channel.write(snapshot);
+        }
+
+        for(int k = 0; k < RING_SIZE; k++){
+            freeBuffers.add(ByteBuffer.allocateDirect(BUFFER_RECORDS*RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN));
+        }
+        current = freeBuffers.poll();
+
+        writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r){
+                Thread t = new Thread(r, "trace-writer");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    public long getNRecords(){return nRecords;}
+
+    public void record(double time, int microhabitat, byte type, int genotype, int count){
+        if(!current.hasRemaining()) handOff();
+        current.putDouble(time).putInt(microhabitat).put(type).put((byte)genotype).putShort((short)0).putInt(count);
+        nRecords++;
+    }
+
+    //passes the full buffer to the writer and takes the next free one
+    private void handOff(){
+        final ByteBuffer full = current;
+        full.flip();
+        writer.execute(new Runnable() {
+            public void run(){
+                try{
+                    while(full.hasRemaining()) channel.write(full);
+                }catch(IOException e){
+                    lastFailure = e;
+                }
+                full.clear();
+                freeBuffers.add(full);
+            }
+        });
+        try{
+            current = freeBuffers.take();
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for the trace writer", e);
+        }
+    }
+
+    //writes out every record so far, including a part-filled buffer, and returns the length of the file.
+    //this waits for the writer, so it's only meant for occasional calls such as checkpoints.
+    public long sync(){
+        if(current.position() > 0) handOff();
+        try{
+            writer.submit(new Runnable() {
+                public void run(){}
+            }).get();
+            if(lastFailure != null) throw lastFailure;
+            return channel.position();
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }catch(ExecutionException e){
+            throw new IllegalStateException(e);
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for the trace writer", e);
+        }
+    }
+
+    //writes the END record at bs's current time and everything still buffered, then closes the file
+    public void close(BioSystem bs) throws IOException{
+        record(bs.getTimeElapsed(), -1, END, 0, 0);
+        handOff();
+        writer.shutdown();
+        try{
+            writer.awaitTermination(1, TimeUnit.MINUTES);
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        channel.force(true);
+        channel.close();
+        if(lastFailure != null) throw lastFailure;
+    }
+}
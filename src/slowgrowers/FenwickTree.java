@@ -0,0 +1,72 @@
+package slowgrowers;
+
+public class FenwickTree {
+
+    //binary indexed tree over the populations of the microhabitats.
+    //tree[i] (1-based) holds the sum of the counts over the range (i - lowbit(i), i]
+    private int[] tree;
+    private int size, total;
+    //largest power of two <= size, used as the first step when descending the tree
+    private int topStep;
+
+    public FenwickTree(int size){
+        this.size = size;
+        this.tree = new int[size+1];
+        this.total = 0;
+
+        this.topStep = 1;
+        while(topStep*2 <= size) topStep *= 2;
+    }
+
+    //builds the tree in O(L) from the current counts
+    public FenwickTree(int[] counts){
+        this(counts.length);
+
+        for(int i = 1; i <= size; i++){
+            tree[i] += counts[i-1];
+            total += counts[i-1];
+            int parent = i + (i & -i);
+            if(parent <= size) tree[parent] += tree[i];
+        }
+    }
+
+    public int getSize(){return size;}
+    public int getTotal(){return total;}
+
+    //adds delta to the count at index i (0-based)
+    public void add(int i, int delta){
+        total += delta;
+        for(int j = i+1; j <= size; j += (j & -j)){
+            tree[j] += delta;
+        }
+    }
+
+    //sum of the counts at indices [0, i)
+    public int prefixSum(int i){
+        int runningTotal = 0;
+        for(int j = i; j > 0; j -= (j & -j)){
+            runningTotal += tree[j];
+        }
+        return runningTotal;
+    }
+
+    public int get(int i){
+        return prefixSum(i+1) - prefixSum(i);
+    }
+
+    //returns the index i such that prefixSum(i) <= target < prefixSum(i+1).
+    //target must lie in [0, total)
+    public int find(int target){
+        int pos = 0;
+        int remaining = target;
+
+        for(int step = topStep; step > 0; step >>= 1){
+            int next = pos + step;
+            if(next <= size && tree[next] <= remaining){
+                pos = next;
+                remaining -= tree[next];
+            }
+        }
+        return pos;
+    }
+}
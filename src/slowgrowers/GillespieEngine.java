@@ -0,0 +1,96 @@
+package slowgrowers;
+
+public class GillespieEngine implements EventEngine {
+
+    //exact rejection-free scheme. The total propensity of each microhabitat, the sum over its genotypes of n_m*(b_m + d_m + r_m),
+    //is kept in a sum tree, so every draw selects an event which actually happens and the clock
+    //is advanced by an exponentially distributed waiting time.
+    private BioSystem bs;
+    private SumTree propensities;
+
+    public void initialise(BioSystem bs){
+        this.bs = bs;
+        this.propensities = new SumTree(bs.getL());
+
+        for(int i = 0; i < bs.getL(); i++){
+            microhabitatChanged(i);
+        }
+    }
+
+    public void microhabitatChanged(int i){
+        Microhabitat m = bs.getMicrohabitat(i);
+        if(m.getN() == 0){
+            propensities.set(i, 0.);
+            return;
+        }
+        double total = 0.;
+        for(int g = 1; g <= m.getFinalM(); g++){
+            int n_g = m.getGenotypeCount(g);
+            if(n_g > 0) total += n_g*perBacteriumRate(bs.getBacteriaOfGenotype(g), m);
+        }
+        propensities.set(i, total);
+    }
+
+    private static double perBacteriumRate(Bacteria bac, Microhabitat m){
+        return bac.getB() + bac.getD() + m.getGrowthRate(bac.getM());
+    }
+
+    public void performAction(){
+
+        double totalPropensity = propensities.getTotal();
+
+        SimMetrics metrics = bs.getMetrics();
+        long selectionStart = (metrics != null && metrics.sampleTiming()) ? System.nanoTime() : 0L;
+
+        //nothing in the system can change any more
+        if(totalPropensity <= 0.){
+            bs.advanceTime(Double.POSITIVE_INFINITY);
+            return;
+        }
+
+        double dt = -Math.log(1. - bs.rand.nextDouble())/totalPropensity;
+
+        int microHabIndex = propensities.find(bs.rand.nextDouble()*totalPropensity);
+        Microhabitat randMicroHab = bs.getMicrohabitat(microHabIndex);
+
+        //picks a genotype weighted by its share of the microhabitat's propensity, then any bacterium of it
+        double genotypeTarget = bs.rand.nextDouble()*propensities.get(microHabIndex);
+        int m = 1;
+        for(; m < randMicroHab.getFinalM(); m++){
+            int n_m = randMicroHab.getGenotypeCount(m);
+            if(n_m == 0) continue;
+            genotypeTarget -= n_m*perBacteriumRate(bs.getBacteriaOfGenotype(m), randMicroHab);
+            if(genotypeTarget < 0.) break;
+        }
+        while(randMicroHab.getGenotypeCount(m) == 0) m--;
+
+        int bacteriaIndex = randMicroHab.indexOfGenotype(m) + bs.rand.nextInt(randMicroHab.getGenotypeCount(m));
+        Bacteria randBac = bs.getBacteriaOfGenotype(m);
+
+        double migRate = randBac.getB();
+        double deaRate = randBac.getD();
+        double repliRate = randMicroHab.getGrowthRate(m);
+        double rando = bs.rand.nextDouble()*(migRate + deaRate + repliRate);
+
+        long actionStart = (selectionStart != 0L) ? System.nanoTime() : 0L;
+        int eventType;
+
+        bs.advanceTime(dt);
+
+        if(rando < migRate){
+            bs.migrate(microHabIndex, bacteriaIndex);
+            eventType = SimMetrics.MIGRATION;
+        }else if(rando < (migRate + deaRate)){
+            bs.die(microHabIndex, bacteriaIndex);
+            eventType = SimMetrics.DEATH;
+        }else{
+            bs.replicate(microHabIndex, bacteriaIndex);
+            eventType = SimMetrics.REPLICATION;
+        }
+
+        if(metrics != null){
+            metrics.recordEvent(eventType, microHabIndex);
+            if(selectionStart != 0L) metrics.recordTiming(actionStart - selectionStart, System.nanoTime() - actionStart);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package slowgrowers;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.HashSet;
+
+public class JobSpec {
+
+    //one experiment read from a job file: its type and the settings it overrides.
+    //a job file has one job per line, the type followed by key=value settings, e.g.
+    //
+    //    # comment
+    //    spatial alpha=0.02 duration=2000 format=binary seed=42 trace=run.trace
+    //    c-vs-S sMin=10 sMax=1000 sPoints=10 cMin=1 cMax=10 cPoints=10 reps=2 threads=8
+    //    alpha-vs-S alphaMax=0.1 reps=5 precision=0.05 mu=0.001 ensemble=true
+    //    alpha-vs-S alphaMax=0.1 micFactor=2 growthCost=0.1 takeover=0.5
+    //
+    //any setting which isn't given takes the value the experiment has always used. A missing seed
+    //means a random one, a missing thread count means one per core. Sweeps only stop replicates early with
+    //steadyInterval, and only stop adding replicates early with precision.
+    public static final String SPATIAL = "spatial", C_VS_S = "c-vs-S", ALPHA_VS_S = "alpha-vs-S";
+
+    //the grids of the contour sweeps when the job doesn't give them: each axis runs from its min to its max
+    //in the given no. of steps
+    public static final int S_MIN = 10, S_MAX = 1000, POINTS = 10;
+    public static final double C_MIN = 1., C_MAX = 10., ALPHA_MIN = 0., ALPHA_MAX = 0.1;
+
+    //the settings each type of job uses, anything else in a job is a mistake rather than something to ignore
+    private static final HashMap<String, HashSet<String>> KEYS = new HashMap<String, HashSet<String>>();
+    static{
+        KEYS.put(SPATIAL, keys("S", "alpha", "format", "interval", "checkpointInterval", "trace"));
+        KEYS.put(C_VS_S, keys(sweepKeys("cMin", "cMax", "cPoints")));
+        KEYS.put(ALPHA_VS_S, keys(sweepKeys("alphaMin", "alphaMax", "alphaPoints", "precision", "ensemble")));
+    }
+
+    //the keys every job uses and typeKeys
+    private static HashSet<String> keys(String... typeKeys){
+        HashSet<String> keys = new HashSet<String>(Arrays.asList(
+                //the system and the model constants of SimParameters
+                "L", "duration", "b", "d", "mu", "K_prime", "finalM", "K", "micFactor", "growthCost",
+                //nutrient diffusion and replenishment
+                "diffusion", "replenish", "transportInterval",
+                "seed", "output"));
+        keys.addAll(Arrays.asList(typeKeys));
+        return keys;
+    }
+
+    //the keys of the contour sweeps, over s and the axis of typeKeys
+    private static String[] sweepKeys(String... typeKeys){
+        ArrayList<String> keys = new ArrayList<String>(Arrays.asList("sMin", "sMax", "sPoints",
+                //replicates, steady state detection and execution
+                "reps", "steadyInterval", "steadyWindow", "steadyTolerance", "threads",
+                //measuring the time until the final genotype takes over instead of the population
+                "takeover"));
+        keys.addAll(Arrays.asList(typeKeys));
+        return keys.toArray(new String[keys.size()]);
+    }
+
+    private String type;
+    private LinkedHashMap<String, String> settings = new LinkedHashMap<String, String>();
+
+    public JobSpec(String type){
+        if(!KEYS.containsKey(type)) throw new IllegalArgumentException("unknown job type " + type + ", expected one of " + KEYS.keySet());
+        this.type = type;
+    }
+
+    public String getType(){return type;}
+
+    public JobSpec set(String key, String value){
+        if(!KEYS.get(type).contains(key)) throw new IllegalArgumentException(type + " jobs don't use the setting " + key);
+        settings.put(key, value);
+        return this;
+    }
+
+    public boolean has(String key){
+        return settings.containsKey(key);
+    }
+
+    public String getString(String key, String defaultValue){
+        String value = settings.get(key);
+        return value == null ? defaultValue : value;
+    }
+
+    public int getInt(String key, int defaultValue){
+        String value = settings.get(key);
+        if(value == null) return defaultValue;
+        try{
+            return Integer.parseInt(value);
+        }catch(NumberFormatException e){
+            throw new IllegalArgumentException(key + " must be an integer: " + value);
+        }
+    }
+
+    public long getLong(String key, long defaultValue){
+        String value = settings.get(key);
+        if(value == null) return defaultValue;
+        try{
+            return Long.parseLong(value);
+        }catch(NumberFormatException e){
+            throw new IllegalArgumentException(key + " must be an integer: " + value);
+        }
+    }
+
+    public double getDouble(String key, double defaultValue){
+        String value = settings.get(key);
+        if(value == null) return defaultValue;
+        try{
+            return Double.parseDouble(value);
+        }catch(NumberFormatException e){
+            throw new IllegalArgumentException(key + " must be a number: " + value);
+        }
+    }
+
+    //the model constants, starting from the defaults. micFactor and growthCost give the genotypes the
+    //evolutionary path of SimParameters.withPathway, without them every genotype has the same rates.
+    public SimParameters getParameters(){
+        SimParameters p = SimParameters.DEFAULT;
+        p = new SimParameters(getDouble("b", p.getB()), getDouble("d", p.getD()), getDouble("mu", p.getMu()),
+                getDouble("K_prime", p.getK_prime()), getInt("finalM", p.getFinalM()), getInt("K", p.getK()));
+        if(has("micFactor") || has("growthCost")) p = p.withPathway(getDouble("micFactor", 1.), getDouble("growthCost", 0.));
+        return p;
+    }
+
+    public SweepExecutor createExecutor(){
+        int nThreads = getInt("threads", Runtime.getRuntime().availableProcessors());
+        if(nThreads < 1) throw new IllegalArgumentException("threads must be at least 1: " + nThreads);
+        return new SweepExecutor(nThreads, getLong("seed", new SimRandom().nextLong()));
+    }
+
+    //the nutrient transport for one system, or null if the job has neither diffusion nor replenishment.
+    //each system needs its own, as it keeps track of the steps it has taken.
+    public NutrientTransport createTransport(){
+        if(!has("diffusion") && !has("replenish")) return null;
+        return new NutrientTransport(getDouble("transportInterval", 0.1), getDouble("diffusion", 0.), getDouble("replenish", 0.));
+    }
+
+    //the condition a replicate's final genotype has taken over, or null if the job measures the population
+    public MutantTakeoverCondition createTakeoverCondition(){
+        return has("takeover") ? new MutantTakeoverCondition(getDouble("takeover", 1.)) : null;
+    }
+
+    public SimRandom createRandom(){
+        return has("seed") ? new SimRandom(getLong("seed", 0L)) : new SimRandom();
+    }
+
+    public String toString(){
+        StringBuilder sb = new StringBuilder(type);
+        for(String key : settings.keySet()){
+            sb.append(' ').append(key).append('=').append(settings.get(key));
+        }
+        return sb.toString();
+    }
+
+    public static JobSpec parse(String line){
+        String[] tokens = line.trim().split("\\s+");
+        JobSpec job = new JobSpec(tokens[0]);
+        for(int t = 1; t < tokens.length; t++){
+            int eq = tokens[t].indexOf('=');
+            if(eq <= 0) throw new IllegalArgumentException("expected key=value, got " + tokens[t]);
+            job.set(tokens[t].substring(0, eq), tokens[t].substring(eq+1));
+        }
+        job.checkSweep();
+        return job;
+    }
+
+    //rejects a sweep which would have no grid points or no replicates. The checks are on the settings the
+    //sweep will run with, so e.g. a cMin above the default cMax is caught too.
+    void checkSweep(){
+        if(type.equals(SPATIAL)) return;
+        checkAxis("s", getInt("sMin", S_MIN), getInt("sMax", S_MAX));
+        if(type.equals(C_VS_S)) checkAxis("c", getDouble("cMin", C_MIN), getDouble("cMax", C_MAX));
+        else checkAxis("alpha", getDouble("alphaMin", ALPHA_MIN), getDouble("alphaMax", ALPHA_MAX));
+        if(getInt("reps", 1) < 1) throw new IllegalArgumentException("reps must be at least 1: " + getInt("reps", 1));
+        //early stopping is only done when asked for, so its settings mean nothing on their own
+        if(!has("steadyInterval") && (has("steadyWindow") || has("steadyTolerance"))){
+            throw new IllegalArgumentException("steadyWindow and steadyTolerance need steadyInterval");
+        }
+        if(has("precision") && has("reps") && getInt("reps", 2) < 2){
+            throw new IllegalArgumentException("precision needs reps of at least 2 to estimate a confidence interval");
+        }
+    }
+
+    private void checkAxis(String axis, double min, double max){
+        if(min > max) throw new IllegalArgumentException(axis + "Min must not be above " + axis + "Max: " + min + " > " + max);
+        int points = getInt(axis + "Points", POINTS);
+        if(points < 1) throw new IllegalArgumentException(axis + "Points must be at least 1: " + points);
+    }
+
+    //reads every job in the file, so a mistake anywhere in it is found before anything runs
+    public static ArrayList<JobSpec> readJobFile(String filename) throws IOException{
+        ArrayList<JobSpec> jobs = new ArrayList<JobSpec>();
+        BufferedReader br = new BufferedReader(new FileReader(filename));
+        try{
+            String line;
+            int lineNo = 0;
+            while((line = br.readLine()) != null){
+                lineNo++;
+                int comment = line.indexOf('#');
+                if(comment >= 0) line = line.substring(0, comment);
+                if(line.trim().isEmpty()) continue;
+                try{
+                    jobs.add(parse(line));
+                }catch(IllegalArgumentException e){
+                    throw new IllegalArgumentException(filename + ":" + lineNo + ": " + e.getMessage(), e);
+                }
+            }
+        }finally{
+            br.close();
+        }
+        return jobs;
+    }
+}
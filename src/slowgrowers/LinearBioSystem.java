@@ -1,3 +1,5 @@
+package slowgrowers;
+
 /*
 import java.util.ArrayList;
 import java.util.Random;
@@ -0,0 +1,217 @@
+package slowgrowers;
+
+
+public class Microhabitat {
+
+    //K = karrying kapacity
+    private int K, s, s_max;
+    private double c;
+
+    //the model constants, including K_prime which is used in growth rates
+    private final SimParameters params;
+
+    //bacteria only differ by their genotype, so the population is stored as the no. of bacteria of
+    //each genotype. genotypeCounts[m-1] holds the no. of bacteria with genotype m.
+    //The i-th bacterium is found by ordering the population by genotype.
+    private int[] genotypeCounts;
+    private int N;
+
+    //the replication rate only changes when c or s do, so it's cached and updated from a shared table.
+    //if the genotypes have their own MIC scales and growth penalties every genotype's rate is cached, in
+    //replicationRates[m-1], from cSquaredScaled[m-1] = (c/micScale_m)^2 and growthFactors[m-1] = 1 - penalty_m.
+    //replicationRate is then the wild type's and maxReplicationRate the largest.
+    private NutrientTable nutrientTable;
+    private double replicationRate, maxReplicationRate;
+    private final boolean sharedGrowthRates;
+    private double[] replicationRates, cSquaredScaled, growthFactors;
+
+
+    public Microhabitat(double c, int S, SimParameters params){
+        this.c = c;
+        this.s = S;
+        this.s_max = S;
+        this.params = params;
+        this.genotypeCounts = new int[params.getFinalM()];
+        this.N = 0;
+        this.nutrientTable = NutrientTable.forS_max(S, params.getK_prime());
+        this.sharedGrowthRates = params.hasSharedGrowthRates();
+        if(!sharedGrowthRates){
+            int finalM = params.getFinalM();
+            replicationRates = new double[finalM];
+            cSquaredScaled = new double[finalM];
+            growthFactors = new double[finalM];
+            for(int m = 1; m <= finalM; m++){
+                growthFactors[m-1] = 1. - params.getGrowthPenalty(m);
+            }
+            scaleC();
+        }
+        updateReplicationRate();
+    }
+
+    public Microhabitat(double c, int S){
+        this(c, S, SimParameters.DEFAULT);
+    }
+
+
+    public int getK(){return K;}
+    public void setK(int K){
+        this.K = K;
+    }
+
+    public double getC(){return c;}
+    public void setC(double c){
+        this.c = c;
+        if(!sharedGrowthRates) scaleC();
+        updateReplicationRate();
+    }
+
+    private void scaleC(){
+        for(int m = 1; m <= cSquaredScaled.length; m++){
+            double cScaled = c/params.getMicScale(m);
+            cSquaredScaled[m-1] = cScaled*cScaled;
+        }
+    }
+
+    public double getK_prime(){return params.getK_prime();}
+
+    public int getS(){return s;}
+    public void setS(int S){
+        this.s = S;
+        updateReplicationRate();
+    }
+
+    public int getS_max(){return s_max;}
+
+    public int getN(){
+        return N;
+    }
+
+    public int getFinalM(){
+        return genotypeCounts.length;
+    }
+
+    public int getGenotypeCount(int m){
+        return genotypeCounts[m-1];
+    }
+
+    //genotype of the i-th bacterium
+    public int getGenotypeOf(int i){
+        int m = 0;
+        while(i >= genotypeCounts[m]){
+            i -= genotypeCounts[m];
+            m++;
+        }
+        return m+1;
+    }
+
+    public void setGenotypeCount(int m, int n){
+        N += n - genotypeCounts[m-1];
+        genotypeCounts[m-1] = n;
+    }
+
+    //index of the first bacterium with genotype m
+    public int indexOfGenotype(int m){
+        int index = 0;
+        for(int j = 0; j < m-1; j++){
+            index += genotypeCounts[j];
+        }
+        return index;
+    }
+
+    //creates a new Bacteria with the genotype of the i-th bacterium, this allocates so isn't for the event loop
+    public Bacteria getBacteria(int i){
+        return new Bacteria(getGenotypeOf(i), params);
+    }
+
+    //no. of bacteria with genotype m > 1
+    public int getNMutants(){
+        return N - genotypeCounts[0];
+    }
+
+    public boolean fullOfMutants(){
+
+        int mutantCounter = getNMutants();
+        if(mutantCounter >= K) return true;
+        else return false;
+    }
+
+    public void innoculateWithABActeria(){
+        int initGentotype = 1;
+        addABacterium(initGentotype);
+    }
+
+    public void fillWithWildType(){
+
+        int initGenotype = 1;
+
+        genotypeCounts[initGenotype-1] += K;
+        N += K;
+    }
+
+    //phi_c*s/(K_prime+s), the same rate as Bacteria.replicationRate(), of the wild type
+    public double getGrowthRate(){
+        return replicationRate;
+    }
+
+    //the replication rate of genotype m
+    public double getGrowthRate(int m){
+        return sharedGrowthRates ? replicationRate : replicationRates[m-1];
+    }
+
+    //the largest replication rate of any genotype, whether or not it's present
+    public double getMaxGrowthRate(){
+        return maxReplicationRate;
+    }
+
+    //the largest replication rate of any genotype with the nutrients at s_max, which depends only on c and
+    //s_max, so it's the same whether the microhabitat is new or restored part way through a run
+    public double getPeakGrowthRate(){
+        if(sharedGrowthRates) return nutrientTable.replicationRate(c*c, s_max);
+        double peak = 0.;
+        for(int g = 0; g < growthFactors.length; g++){
+            peak = Math.max(peak, growthFactors[g]*nutrientTable.replicationRate(cSquaredScaled[g], s_max));
+        }
+        return peak;
+    }
+
+    private void updateReplicationRate(){
+        if(sharedGrowthRates){
+            replicationRate = nutrientTable.replicationRate(c*c, s);
+            maxReplicationRate = replicationRate;
+            return;
+        }
+        maxReplicationRate = 0.;
+        for(int g = 0; g < replicationRates.length; g++){
+            replicationRates[g] = growthFactors[g]*nutrientTable.replicationRate(cSquaredScaled[g], s);
+            maxReplicationRate = Math.max(maxReplicationRate, replicationRates[g]);
+        }
+        replicationRate = replicationRates[0];
+    }
+
+    public void consumeNutrients(){
+        if(s > 0){
+            s--;
+            updateReplicationRate();
+        }
+    }
+
+    //removes the i-th bacterium and returns its genotype
+    public int removeABacterium(int i){
+        int m = getGenotypeOf(i);
+        genotypeCounts[m-1]--;
+        N--;
+        return m;
+    }
+
+    public void addABacterium(int m){
+        genotypeCounts[m-1]++;
+        N++;
+    }
+
+    public void addABacterium(Bacteria newBact){
+        addABacterium(newBact.getM());
+    }
+
+
+
+}
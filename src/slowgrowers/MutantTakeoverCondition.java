@@ -0,0 +1,18 @@
+package slowgrowers;
+
+public class MutantTakeoverCondition implements TerminationCondition {
+
+    //stops a run once bacteria of the final, most resistant, genotype make up at least fraction of the
+    //population. A population which has died out hasn't been taken over.
+    private double fraction;
+
+    public MutantTakeoverCondition(double fraction){
+        if(fraction <= 0. || fraction > 1.) throw new IllegalArgumentException("takeover fraction must be in (0, 1]: " + fraction);
+        this.fraction = fraction;
+    }
+
+    public boolean isMet(BioSystem bs){
+        int N = bs.getCurrentPopulation();
+        return N > 0 && bs.nResistant() >= fraction*N;
+    }
+}
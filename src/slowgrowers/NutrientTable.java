@@ -0,0 +1,65 @@
+package slowgrowers;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+public class NutrientTable {
+
+    //the parts of the growth rate which only depend on the no. of nutrients s, precomputed for every
+    //s in 0..s_max so the event loop needs no divisions. One table is shared by every microhabitat
+    //(and every BioSystem) with the same s_max and K_prime.
+    private static final ConcurrentHashMap<String, NutrientTable> tables = new ConcurrentHashMap<String, NutrientTable>();
+
+    private final int s_max;
+    private final double K_prime;
+    //monod[s] = s/(K_prime+s), invBetaSq[s] = 1/beta(s)^2
+    private final double[] monod, invBetaSq;
+
+    private NutrientTable(int s_max, double K_prime){
+        this.s_max = s_max;
+        this.K_prime = K_prime;
+        this.monod = new double[s_max+1];
+        this.invBetaSq = new double[s_max+1];
+
+        for(int s = 0; s <= s_max; s++){
+            monod[s] = monod(s);
+            double beta = beta(s);
+            invBetaSq[s] = 1./(beta*beta);
+        }
+    }
+
+    //systems made on different threads, e.g. by a sweep, always get the same table. The plain get first
+    //keeps the usual case, a table which already exists, free of the map's locking.
+    public static NutrientTable forS_max(final int s_max, final double K_prime){
+        String key = s_max + ":" + K_prime;
+        NutrientTable table = tables.get(key);
+        if(table != null) return table;
+        return tables.computeIfAbsent(key, new Function<String, NutrientTable>() {
+            public NutrientTable apply(String k){
+                return new NutrientTable(s_max, K_prime);
+            }
+        });
+    }
+
+    public int getS_max(){return s_max;}
+
+    private double monod(int s){
+        return s/(K_prime + s);
+    }
+
+    //MIC now depends on the nutrients present in the microhabitat
+    private double beta(int s){
+        double mu_max = s_max/(K_prime + s_max);
+        return 1. + 9.*monod(s)/mu_max;
+    }
+
+    //phi_c*s/(K_prime+s), takes c^2 so the caller can cache it
+    public double replicationRate(double cSquared, int s){
+        if(s > s_max){
+            //outside the table, e.g. if nutrients have been added to a microhabitat
+            double beta = beta(s);
+            return Math.max(1. - cSquared/(beta*beta), 0.)*monod(s);
+        }
+        return Math.max(1. - cSquared*invBetaSq[s], 0.)*monod[s];
+    }
+}
@@ -0,0 +1,199 @@
+package slowgrowers;
+
+import java.nio.ByteBuffer;
+
+public class NutrientTransport {
+
+    //moves nutrients between neighbouring microhabitats and exchanges them with a reservoir, between events.
+    //the nutrients diffuse at rate diffusionRate between neighbouring microhabitats (the ends of the gradient
+    //reflect), and with replenishRate > 0 every microhabitat is a chemostat fed from a reservoir at its
+    //initial level s_max, so its level relaxes back towards s_max at rate replenishRate:
+    //  ds_i/dt = diffusionRate*(s_{i-1} - 2s_i + s_{i+1}) + replenishRate*(s_max_i - s_i)
+    //every interval of simulated time this is stepped with backward Euler, which is stable for any interval
+    //and never takes a level below zero. A step is one pass of the Thomas algorithm over flat arrays, a few
+    //flops per microhabitat.
+    //microhabitats hold whole nutrient units, so each keeps the fractional part of its level in remainders and
+    //only changes when its level crosses a whole unit. That way slow flows build up rather than being rounded
+    //away. Microhabitats which change go through BioSystem.updateMicrohabitat, which updates their cached
+    //rates, the running totals, the event engine and the trace.
+    //
+    //a microhabitat at its s_max, next to ones with the same s_max, is settled: nothing flows in or out of it.
+    //Ahead of the front the gradient is settled all the way to its end, so a step only covers the disturbed
+    //region [disturbedFrom, disturbedTo), plus a margin either side far enough for the step's effect to have
+    //died away, and treats the settled microhabitats beyond it as fixed at s_max. Nutrients only change
+    //elsewhere when bacteria use them up, which the BioSystem reports through nutrientsChanged, so a step
+    //costs O(disturbed region) rather than O(L).
+    private final double interval, diffusionRate, replenishRate;
+    //a level within this of s_max counts as being at it
+    private static final double SETTLED = 1e-9;
+
+    //no. of steps taken, the next one is due at (steps+1)*interval
+    private long steps;
+    //levels[i] is the nutrient level of microhabitat i during a step, remainders[i] the part of it not held as whole units
+    private double[] levels, remainders;
+    //the Thomas algorithm's modified superdiagonal
+    private double[] upper;
+    //s_max of every microhabitat, and whether its neighbours have the same s_max
+    private double[] sMax;
+    private boolean[] flat;
+    private int disturbedFrom, disturbedTo, margin;
+    private int[] noCountChanges;
+
+    public NutrientTransport(double interval, double diffusionRate, double replenishRate){
+        if(!(interval > 0.) || Double.isInfinite(interval)) throw new IllegalArgumentException("transport interval must be finite and positive: " + interval);
+        if(!(diffusionRate >= 0.) || Double.isInfinite(diffusionRate)) throw new IllegalArgumentException("diffusion rate must be finite and >= 0: " + diffusionRate);
+        if(!(replenishRate >= 0.) || Double.isInfinite(replenishRate)) throw new IllegalArgumentException("replenish rate must be finite and >= 0: " + replenishRate);
+        this.interval = interval;
+        this.diffusionRate = diffusionRate;
+        this.replenishRate = replenishRate;
+    }
+
+    public double getInterval(){return interval;}
+    public double getDiffusionRate(){return diffusionRate;}
+    public double getReplenishRate(){return replenishRate;}
+
+    public String toString(){
+        return "interval " + interval + " diffusion " + diffusionRate + " replenish " + replenishRate;
+    }
+
+    //steps fall on whole multiples of interval, so a system the transport is attached to part way through a
+    //run carries on with the same ones. A system restored from a snapshot gets its transport back with the
+    //remainders and steps it had, see fromSnapshot.
+    public void initialise(BioSystem bs){
+        int L = bs.getL();
+        this.steps = (long)Math.floor(bs.getTimeElapsed()/interval);
+        this.levels = new double[L];
+        this.remainders = new double[L];
+        this.upper = new double[L];
+        this.noCountChanges = new int[bs.getParameters().getFinalM()];
+
+        this.sMax = new double[L];
+        this.flat = new boolean[L];
+        double largestS_max = 0.;
+        for(int i = 0; i < L; i++){
+            sMax[i] = bs.getMicrohabitat(i).getS_max();
+            largestS_max = Math.max(largestS_max, sMax[i]);
+        }
+        disturbedFrom = L;
+        disturbedTo = 0;
+        for(int i = 0; i < L; i++){
+            flat[i] = (i == 0 || sMax[i-1] == sMax[i]) && (i == L-1 || sMax[i+1] == sMax[i]);
+            if(!flat[i] || bs.getMicrohabitat(i).getS() != sMax[i]) nutrientsChanged(i);
+        }
+
+        //a change decays by a factor rho per microhabitat across one step, the smaller root of
+        //r*rho^2 - (1 + 2r + g)*rho + r = 0. The margin is where the largest possible change has decayed below SETTLED.
+        double r = diffusionRate*interval, g = replenishRate*interval;
+        double rho = 0.;
+        if(r > 0.){
+            double diagonal = 1. + 2.*r + g;
+            rho = (diagonal - Math.sqrt(diagonal*diagonal - 4.*r*r))/(2.*r);
+        }
+        margin = 0;
+        for(double change = largestS_max + 1.; change >= SETTLED && margin < L; change *= rho){
+            margin++;
+        }
+    }
+
+    //the transport's part of a BioSystem snapshot: its rates, the no. of steps taken and the remainders of the
+    //disturbed region. Everywhere else has settled, so its remainders are all zero.
+    int snapshotBytes(){
+        return 8*3 + 8 + 4*2 + 8*Math.max(disturbedTo - disturbedFrom, 0);
+    }
+
+    void writeSnapshot(ByteBuffer buffer){
+        buffer.putDouble(interval).putDouble(diffusionRate).putDouble(replenishRate).putLong(steps);
+        buffer.putInt(disturbedFrom).putInt(disturbedTo);
+        for(int i = disturbedFrom; i < disturbedTo; i++){
+            buffer.putDouble(remainders[i]);
+        }
+    }
+
+    //the transport saved by writeSnapshot, for bs once its microhabitats have been restored
+    static NutrientTransport fromSnapshot(ByteBuffer buffer, BioSystem bs){
+        NutrientTransport transport = new NutrientTransport(buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+        long steps = buffer.getLong();
+        int disturbedFrom = buffer.getInt(), disturbedTo = buffer.getInt();
+
+        transport.initialise(bs);
+        transport.steps = steps;
+        transport.disturbedFrom = disturbedFrom;
+        transport.disturbedTo = disturbedTo;
+        for(int i = disturbedFrom; i < disturbedTo; i++){
+            transport.remainders[i] = buffer.getDouble();
+        }
+        return transport;
+    }
+
+    //the part of microhabitat i's nutrient level not held as whole units, so its level is getS() plus this
+    double getRemainder(int i){
+        return remainders[i];
+    }
+
+    //called by the BioSystem whenever microhabitat i's nutrients are changed by anything other than this
+    public void nutrientsChanged(int i){
+        if(i < disturbedFrom) disturbedFrom = i;
+        if(i >= disturbedTo) disturbedTo = i+1;
+    }
+
+    //takes every step the clock has passed since the last call. After the clock has jumped to infinity
+    //(nothing can happen any more) there's nothing to catch up with.
+    public void catchUp(BioSystem bs){
+        double time = bs.getTimeElapsed();
+        if(Double.isInfinite(time)) return;
+        while((steps+1)*interval <= time){
+            step(bs);
+            steps++;
+        }
+    }
+
+    private void step(BioSystem bs){
+
+        if(disturbedFrom >= disturbedTo) return;
+
+        int L = bs.getL();
+        int from = Math.max(disturbedFrom - margin, 0), to = Math.min(disturbedTo + margin, L);
+        double r = diffusionRate*interval, g = replenishRate*interval;
+
+        //the right hand side, the current levels plus what flows in from the reservoir and from the
+        //settled microhabitats either side
+        for(int i = from; i < to; i++){
+            levels[i] = bs.getMicrohabitat(i).getS() + remainders[i] + g*sMax[i];
+        }
+        if(from > 0) levels[from] += r*sMax[from-1];
+        if(to < L) levels[to-1] += r*sMax[to];
+
+        //(1 + 2r + g)s_i - r*s_{i-1} - r*s_{i+1}, with one neighbour fewer at the ends of the gradient.
+        //forward elimination, factorising as it goes since the range changes, then back substitution
+        double previousUpper = 0.;
+        for(int i = from; i < to; i++){
+            double diagonal = 1. + g + r*((i > 0 ? 1. : 0.) + (i < L-1 ? 1. : 0.)) + r*previousUpper;
+            double pivot = 1./diagonal;
+            if(i > from) levels[i] += r*levels[i-1];
+            levels[i] *= pivot;
+            upper[i] = -r*pivot;
+            previousUpper = upper[i];
+        }
+        for(int i = to-2; i >= from; i--){
+            levels[i] -= upper[i]*levels[i+1];
+        }
+
+        int first = to, last = from-1;
+        for(int i = from; i < to; i++){
+            int s = bs.getMicrohabitat(i).getS();
+            int newS = (int)Math.floor(levels[i] + 0.5);
+            double remainder = levels[i] - newS;
+            if(flat[i] && newS == sMax[i] && Math.abs(remainder) < SETTLED){
+                remainder = 0.;
+            }else{
+                if(first == to) first = i;
+                last = i;
+            }
+            remainders[i] = remainder;
+            if(newS != s) bs.updateMicrohabitat(i, noCountChanges, s - newS);
+        }
+        //the changes made above come back through nutrientsChanged, the region is set once they're done
+        disturbedFrom = first;
+        disturbedTo = last+1;
+    }
+}
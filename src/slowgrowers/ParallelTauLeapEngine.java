@@ -0,0 +1,154 @@
+package slowgrowers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+public class ParallelTauLeapEngine extends TauLeapEngine implements AutoCloseable {
+
+    //tau-leaping with the gradient split into contiguous blocks of microhabitats, one task per block.
+    //every leap is synchronous: the blocks find their own bound on tau in parallel, the smallest is used by
+    //all of them, then each block draws its events with its own generator. Migrants crossing a block edge
+    //go into that block's halo and are added to the neighbouring block once every block has finished,
+    //so no two threads ever write to the same microhabitat. The results only depend on the seed and the
+    //no. of blocks, not on how the threads are scheduled. The engine owns its pool, so it must be closed.
+    private int nBlocks;
+    private ForkJoinPool pool;
+
+    private int[] blockStarts;
+    private SimRandom[] blockRands;
+    private int[][] leftHalos, rightHalos;
+    private long[][] blockEvents;
+
+    public ParallelTauLeapEngine(double epsilon, double maxTau, int nBlocks, int nThreads){
+        super(epsilon, maxTau);
+        if(nBlocks < 1) throw new IllegalArgumentException("need at least one block: " + nBlocks);
+        this.nBlocks = nBlocks;
+        this.pool = new ForkJoinPool(nThreads);
+    }
+
+    public ParallelTauLeapEngine(int nThreads){
+        this(0.03, 1., nThreads, nThreads);
+    }
+
+    public void initialise(BioSystem bs){
+        super.initialise(bs);
+
+        int L = bs.getL();
+        int blocks = Math.min(nBlocks, L);
+
+        blockStarts = new int[blocks+1];
+        for(int b = 0; b <= blocks; b++){
+            blockStarts[b] = (int)((long)b*L/blocks);
+        }
+
+        //each block's generator is seeded from the system's, so a seeded system gives the same trajectory every time
+        blockRands = new SimRandom[blocks];
+        long blockSeed = bs.rand.nextLong();
+        for(int b = 0; b < blocks; b++){
+            blockRands[b] = new SimRandom(blockSeed, b);
+        }
+
+        int finalM = bs.getParameters().getFinalM();
+        leftHalos = new int[blocks][finalM];
+        rightHalos = new int[blocks][finalM];
+        blockEvents = new long[blocks][leapEvents.length];
+    }
+
+    public void close(){
+        pool.shutdown();
+    }
+
+    protected double totalPropensity(){
+        double total = 0.;
+        for(double blockTotal : forEachBlock(new BlockTask() {
+            public double run(int b, int from, int to){
+                return totalPropensity(from, to);
+            }
+        })){
+            total += blockTotal;
+        }
+        return total;
+    }
+
+    protected double selectTau(){
+        double tau = Double.POSITIVE_INFINITY;
+        for(double blockTau : forEachBlock(new BlockTask() {
+            public double run(int b, int from, int to){
+                return selectTau(from, to);
+            }
+        })){
+            tau = Math.min(tau, blockTau);
+        }
+        return tau;
+    }
+
+    protected boolean drawLeap(final double tau){
+
+        boolean accepted = true;
+        for(double ok : forEachBlock(new BlockTask() {
+            public double run(int b, int from, int to){
+                return drawLeap(tau, from, to, blockRands[b], leftHalos[b], rightHalos[b], blockEvents[b]) ? 1. : 0.;
+            }
+        })){
+            if(ok == 0.) accepted = false;
+        }
+
+        //the halo exchange: migrants which left a block are added to the microhabitat next to it
+        for(int b = 0; b < blockRands.length; b++){
+            int from = blockStarts[b], to = blockStarts[b+1];
+            for(int g = 0; g < leftHalos[b].length; g++){
+                if(accepted && from > 0) countDeltas[from-1][g] += leftHalos[b][g];
+                if(accepted && to < bs.getL()) countDeltas[to][g] += rightHalos[b][g];
+            }
+            for(int type = 0; type < leapEvents.length; type++){
+                if(accepted) leapEvents[type] += blockEvents[b][type];
+            }
+            Arrays.fill(leftHalos[b], 0);
+            Arrays.fill(rightHalos[b], 0);
+            Arrays.fill(blockEvents[b], 0L);
+        }
+        return accepted;
+    }
+
+    private interface BlockTask {
+        double run(int b, int from, int to);
+    }
+
+    //runs task on every block in parallel and returns each block's result
+    private double[] forEachBlock(final BlockTask task){
+
+        int blocks = blockRands.length;
+        final double[] results = new double[blocks];
+        if(blocks == 1){
+            results[0] = task.run(0, blockStarts[0], blockStarts[1]);
+            return results;
+        }
+
+        ArrayList<Callable<Void>> tasks = new ArrayList<Callable<Void>>(blocks);
+        for(int b = 0; b < blocks; b++){
+            final int block = b;
+            tasks.add(new Callable<Void>() {
+                public Void call(){
+                    results[block] = task.run(block, blockStarts[block], blockStarts[block+1]);
+                    return null;
+                }
+            });
+        }
+
+        try{
+            for(Future<Void> f : pool.invokeAll(tasks)){
+                f.get();
+            }
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("leap was interrupted", e);
+        }catch(ExecutionException e){
+            throw new IllegalStateException("block failed", e.getCause());
+        }
+        return results;
+    }
+}
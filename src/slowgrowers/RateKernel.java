@@ -0,0 +1,19 @@
+package slowgrowers;
+
+public class RateKernel {
+
+    //whole-gradient sums over the per-microhabitat rates, working on plain arrays (one per quantity,
+    //indexed by microhabitat) rather than on Microhabitat objects. The loops are kept free of calls,
+    //branches and dependencies between iterations so the JIT can unroll them; the sums are reductions,
+    //which it keeps in order.
+
+    //sum of n[i]*(spontaneousRate + rate[i]) over [from, to): the total propensity when every genotype
+    //has the same migration and death rates, spontaneousRate = b + d
+    public static double totalPropensity(double[] n, double[] rate, double spontaneousRate, int from, int to){
+        double total = 0.;
+        for(int i = from; i < to; i++){
+            total += n[i]*(spontaneousRate + rate[i]);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,85 @@
+package slowgrowers;
+
+public class RejectionEngine implements EventEngine {
+
+    //the original scheme: a bacterium is picked uniformly from the whole population and an event is
+    //chosen by comparing a random number in [0, R_max) against its rates. Draws which fall past all
+    //of the rates are null events which only advance the clock.
+    //R_max is the largest b + d of any genotype plus the largest replication rate of any genotype in any microhabitat.
+    //replication rates only fall as nutrients are used up, so this stays an upper bound; if a rate ever
+    //goes above it (nutrients added by a NutrientTransport) R_max is raised to match.
+    //the replication rates are taken at s_max rather than the current nutrients, so a system restored from a
+    //snapshot gets the same R_max as the run it was taken from had, and carries on with the same draws.
+    private BioSystem bs;
+    private double maxSpontaneousRate, maxGrowthRate, R_max;
+
+    public void initialise(BioSystem bs){
+        this.bs = bs;
+
+        maxSpontaneousRate = 0.;
+        for(int m = 1; m <= bs.getParameters().getFinalM(); m++){
+            Bacteria bac = bs.getBacteriaOfGenotype(m);
+            maxSpontaneousRate = Math.max(maxSpontaneousRate, bac.getB() + bac.getD());
+        }
+        maxGrowthRate = 0.;
+        for(int i = 0; i < bs.getL(); i++){
+            Microhabitat m = bs.getMicrohabitat(i);
+            maxGrowthRate = Math.max(maxGrowthRate, Math.max(m.getPeakGrowthRate(), m.getMaxGrowthRate()));
+        }
+        R_max = maxSpontaneousRate + maxGrowthRate;
+    }
+
+    public double getR_max(){return R_max;}
+
+    public void microhabitatChanged(int i){
+        double r = bs.getMicrohabitat(i).getMaxGrowthRate();
+        if(r > maxGrowthRate){
+            maxGrowthRate = r;
+            R_max = maxSpontaneousRate + maxGrowthRate;
+        }
+    }
+
+    public void performAction(){
+
+        SimMetrics metrics = bs.getMetrics();
+        long selectionStart = (metrics != null && metrics.sampleTiming()) ? System.nanoTime() : 0L;
+
+        FenwickTree habitatPops = bs.getPopulationIndex();
+
+        //selects a random bacteria from the total population
+        int randomIndex = bs.rand.nextInt(habitatPops.getTotal());
+        int microHabIndex = habitatPops.find(randomIndex);
+        int bacteriaIndex = randomIndex - habitatPops.prefixSum(microHabIndex);
+
+        Microhabitat randMicroHab = bs.getMicrohabitat(microHabIndex);
+
+        int m = randMicroHab.getGenotypeOf(bacteriaIndex);
+        Bacteria randBac = bs.getBacteriaOfGenotype(m);
+
+        double migRate = randBac.getB();
+        double deaRate = randBac.getD();
+        double repliRate = randMicroHab.getGrowthRate(m);
+        double rando = bs.rand.nextDouble()*R_max;
+
+        long actionStart = (selectionStart != 0L) ? System.nanoTime() : 0L;
+        int eventType = SimMetrics.NULL_EVENT;
+
+        if(rando < migRate){
+            bs.migrate(microHabIndex, bacteriaIndex);
+            eventType = SimMetrics.MIGRATION;
+        }else if(rando >= migRate && rando < (migRate + deaRate)){
+            bs.die(microHabIndex, bacteriaIndex);
+            eventType = SimMetrics.DEATH;
+        }else if(rando >= (migRate + deaRate) && rando < (migRate + deaRate + repliRate)){
+            bs.replicate(microHabIndex, bacteriaIndex);
+            eventType = SimMetrics.REPLICATION;
+        }
+
+        bs.advanceTime(1./((double) habitatPops.getTotal()*R_max));
+
+        if(metrics != null){
+            metrics.recordEvent(eventType, microHabIndex);
+            if(selectionStart != 0L) metrics.recordTiming(actionStart - selectionStart, System.nanoTime() - actionStart);
+        }
+    }
+}
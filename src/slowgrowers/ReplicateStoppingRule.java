@@ -0,0 +1,54 @@
+package slowgrowers;
+
+public class ReplicateStoppingRule {
+
+    //decides when a grid point of a sweep has enough replicates: once the half-width of the 95% confidence
+    //interval of the mean is within a relative precision of the mean, or maxReps have been run.
+    //at least minReps are always run, and no fewer than two, since one replicate gives no spread.
+
+    //two-sided 95% student t quantiles for 1..30 degrees of freedom
+    private static final double[] T_95 = {12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+            2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+            2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042};
+
+    private int minReps, maxReps, batchSize;
+    private double precision;
+
+    public ReplicateStoppingRule(int minReps, int maxReps, double precision){
+        if(minReps < 2) throw new IllegalArgumentException("need at least two replicates to estimate a confidence interval");
+        if(maxReps < minReps) throw new IllegalArgumentException("maxReps must be at least minReps");
+        if(precision <= 0.) throw new IllegalArgumentException("precision must be positive: " + precision);
+
+        this.minReps = minReps;
+        this.maxReps = maxReps;
+        this.precision = precision;
+        this.batchSize = Math.max(1, minReps/2);
+    }
+
+    public int getMinReps(){return minReps;}
+    public int getMaxReps(){return maxReps;}
+    //no. of replicates added to an unfinished grid point in each round
+    public int getBatchSize(){return batchSize;}
+
+    public boolean isDone(double[] values, int n){
+        if(n < minReps) return false;
+        if(n >= maxReps) return true;
+        return halfWidth(values, n) <= precision*Math.abs(mean(values, n));
+    }
+
+    public static double mean(double[] values, int n){
+        double runningTotal = 0.;
+        for(int k = 0; k < n; k++) runningTotal += values[k];
+        return runningTotal/n;
+    }
+
+    //half-width of the 95% confidence interval of the mean of the first n values
+    public static double halfWidth(double[] values, int n){
+        double mean = mean(values, n);
+        double sumSq = 0.;
+        for(int k = 0; k < n; k++) sumSq += (values[k] - mean)*(values[k] - mean);
+
+        double t = (n - 1 <= T_95.length) ? T_95[n - 2] : 1.96;
+        return t*Math.sqrt(sumSq/(n - 1)/n);
+    }
+}
@@ -0,0 +1,8 @@
+package slowgrowers;
+
+public interface SampleObserver {
+
+    //called once for each multiple of the observer's interval that the clock of the BioSystem passes.
+    //the system is in the state it had at sampleTime, and getTimeElapsed() returns sampleTime.
+    void sample(BioSystem bs, double sampleTime);
+}
@@ -0,0 +1,214 @@
+package slowgrowers;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public class SimMetrics implements SimMetricsMBean {
+
+    //counters for the event loop: how many events of each type happened, how many draws of the rejection
+    //scheme were null events (overall and per microhabitat), the event rate in wall time, and the time
+    //spent selecting an event versus carrying it out. A BioSystem only records into one once it's been
+    //given it with setMetrics, without one the engines skip all of this.
+    //the counters are striped (LongAdder), so one SimMetrics can be shared by all the replicates of a
+    //sweep running on different threads. Timing is only measured on a random 1 in TIMING_SAMPLE_RATE
+    //calls, as System.nanoTime costs about as much as an event.
+    public static final int MIGRATION = 0, DEATH = 1, REPLICATION = 2, NULL_EVENT = 3;
+    private static final int TIMING_SAMPLE_RATE = 1024;
+
+    private final LongAdder[] eventCounts = new LongAdder[4];
+    //draws landing in each microhabitat and those of them which were null events, for engines which draw one at a time
+    private final LongAdder[] habitatDraws, habitatNullEvents;
+    private final LongAdder timedCalls = new LongAdder(), selectionNanos = new LongAdder(), actionNanos = new LongAdder();
+    private volatile long startNanos;
+
+    private ScheduledExecutorService exporter;
+    //the write which stopped the periodic export, thrown again by close
+    private volatile UncheckedIOException exportFailure;
+    private ObjectName mBeanName;
+
+    //L is the no. of microhabitats of the systems recording into this
+    public SimMetrics(int L){
+        for(int t = 0; t < eventCounts.length; t++) eventCounts[t] = new LongAdder();
+        habitatDraws = new LongAdder[L];
+        habitatNullEvents = new LongAdder[L];
+        for(int i = 0; i < L; i++){
+            habitatDraws[i] = new LongAdder();
+            habitatNullEvents[i] = new LongAdder();
+        }
+        startNanos = System.nanoTime();
+    }
+
+    //a single draw of type in microhabitat i
+    public void recordEvent(int type, int i){
+        eventCounts[type].increment();
+        habitatDraws[i].increment();
+        if(type == NULL_EVENT) habitatNullEvents[i].increment();
+    }
+
+    //count events of type happening at once, e.g. during a tau leap
+    public void recordEvents(int type, long count){
+        if(count != 0) eventCounts[type].add(count);
+    }
+
+    //whether the caller should time this call and pass the times to recordTiming
+    public boolean sampleTiming(){
+        return ThreadLocalRandom.current().nextInt(TIMING_SAMPLE_RATE) == 0;
+    }
+
+    public void recordTiming(long selection, long action){
+        timedCalls.increment();
+        selectionNanos.add(selection);
+        actionNanos.add(action);
+    }
+
+    public long getMigrations(){return eventCounts[MIGRATION].sum();}
+    public long getDeaths(){return eventCounts[DEATH].sum();}
+    public long getReplications(){return eventCounts[REPLICATION].sum();}
+    public long getNullEvents(){return eventCounts[NULL_EVENT].sum();}
+
+    //all events, null events included
+    public long getEvents(){
+        long total = 0;
+        for(LongAdder count : eventCounts) total += count.sum();
+        return total;
+    }
+
+    //events carried out per second of wall time since this was created or last reset
+    public double getEventsPerSecond(){
+        return getEvents()/((System.nanoTime() - startNanos)*1e-9);
+    }
+
+    public double getNullEventRatio(){
+        long events = getEvents();
+        return events == 0 ? 0. : getNullEvents()/(double)events;
+    }
+
+    //fraction of the draws in each microhabitat which were null events
+    public double[] getNullEventRatios(){
+        double[] ratios = new double[habitatDraws.length];
+        for(int i = 0; i < ratios.length; i++){
+            long draws = habitatDraws[i].sum();
+            ratios[i] = draws == 0 ? 0. : habitatNullEvents[i].sum()/(double)draws;
+        }
+        return ratios;
+    }
+
+    public double getMeanSelectionNanos(){
+        long calls = timedCalls.sum();
+        return calls == 0 ? 0. : selectionNanos.sum()/(double)calls;
+    }
+
+    public double getMeanActionNanos(){
+        long calls = timedCalls.sum();
+        return calls == 0 ? 0. : actionNanos.sum()/(double)calls;
+    }
+
+    public void reset(){
+        for(LongAdder count : eventCounts) count.reset();
+        for(int i = 0; i < habitatDraws.length; i++){
+            habitatDraws[i].reset();
+            habitatNullEvents[i].reset();
+        }
+        timedCalls.reset();
+        selectionNanos.reset();
+        actionNanos.reset();
+        startNanos = System.nanoTime();
+    }
+
+    public static String columnNames(){
+        return "migrations\tdeaths\treplications\tnull events\tevents/s\tnull ratio\tselection ns\taction ns";
+    }
+
+    public String toString(){
+        return getMigrations() + "\t" + getDeaths() + "\t" + getReplications() + "\t" + getNullEvents() + "\t"
+                + String.format("%.4g", getEventsPerSecond()) + "\t" + String.format("%.4g", getNullEventRatio()) + "\t"
+                + String.format("%.4g", getMeanSelectionNanos()) + "\t" + String.format("%.4g", getMeanActionNanos());
+    }
+
+    //appends a row of the current values to filename.txt every period seconds on a background thread,
+    //starting the file with the column names. A failed write stops the export, it's reported on stderr
+    //straight away and thrown by close.
+    public void exportEvery(String filename, double period){
+        if(exporter != null) throw new IllegalStateException("already exporting");
+
+        final String file = filename + ".txt";
+        writeLine(file, "# wall time (s)\t" + columnNames(), false);
+
+        exporter = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r){
+                Thread t = new Thread(r, "metrics-exporter");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        final long exportStart = System.nanoTime();
+        long periodMillis = Math.max(1L, (long)(period*1000.));
+        exporter.scheduleAtFixedRate(new Runnable() {
+            public void run(){
+                try{
+                    writeLine(file, String.format("%.3f", (System.nanoTime() - exportStart)*1e-9) + "\t" + SimMetrics.this, true);
+                }catch(UncheckedIOException e){
+                    exportFailure = e;
+                    System.err.println("metrics export stopped: " + e.getMessage());
+                    //the executor cancels a task which throws, so nothing more is written
+                    throw e;
+                }
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static void writeLine(String file, String line, boolean append){
+        try{
+            BufferedWriter bw = new BufferedWriter(new FileWriter(file, append));
+            bw.write(line);
+            bw.newLine();
+            bw.close();
+        }catch(IOException e){
+            throw new UncheckedIOException("couldn't write metrics to " + file, e);
+        }
+    }
+
+    //makes the counters readable over JMX (e.g. in jconsole) as slowGrowers:type=SimMetrics,name=name
+    public void registerMBean(String name){
+        try{
+            mBeanName = new ObjectName("slowGrowers:type=SimMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, mBeanName);
+        }catch(JMException e){
+            throw new IllegalStateException("couldn't register metrics as " + name, e);
+        }
+    }
+
+    //stops any periodic export and unregisters the MBean, then throws the failure which stopped the export
+    //early, if there was one
+    public void close(){
+        if(exporter != null){
+            exporter.shutdown();
+            try{
+                exporter.awaitTermination(10, TimeUnit.SECONDS);
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+            exporter = null;
+        }
+        if(mBeanName != null){
+            try{
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(mBeanName);
+            }catch(JMException e){
+                throw new IllegalStateException("couldn't unregister " + mBeanName, e);
+            }
+            mBeanName = null;
+        }
+        if(exportFailure != null) throw exportFailure;
+    }
+}
@@ -0,0 +1,16 @@
+package slowgrowers;
+
+public interface SimMetricsMBean {
+
+    //what SimMetrics exposes over JMX
+    long getMigrations();
+    long getDeaths();
+    long getReplications();
+    long getNullEvents();
+    long getEvents();
+    double getEventsPerSecond();
+    double getNullEventRatio();
+    double getMeanSelectionNanos();
+    double getMeanActionNanos();
+    void reset();
+}
@@ -0,0 +1,124 @@
+package slowgrowers;
+
+import java.util.Arrays;
+
+public final class SimParameters {
+
+    //the model constants shared by every bacterium and microhabitat of a BioSystem. Instances are
+    //immutable and checked when they're made, a variation is made with one of the with... methods,
+    //e.g. SimParameters.DEFAULT.withMu(1e-3), so a sweep over a rate doesn't need a recompile.
+    public static final SimParameters DEFAULT = new SimParameters(0.1, 0., 0., 33., 2, 100);
+
+    //migration rate, death rate, mutation rate, and the constant in the monod factor s/(K_prime+s)
+    private final double b, d, mu, K_prime;
+    //no. of genotypes in the evolutionary path
+    private final int finalM;
+    //no. of wild type bacteria the gradient starts with in its first microhabitat
+    private final int K;
+
+    //the evolutionary path, one entry per genotype (genotype m at m-1): its own migration and death rates,
+    //the factor its MIC is scaled by and the fraction of its replication rate it loses as the cost of
+    //resistance. null means every genotype has the shared value (b, d, 1 and 0), which is the original model.
+    private final double[] genotypeB, genotypeD, micScales, growthPenalties;
+
+    public SimParameters(double b, double d, double mu, double K_prime, int finalM, int K){
+        this(b, d, mu, K_prime, finalM, K, null, null, null, null);
+    }
+
+    private SimParameters(double b, double d, double mu, double K_prime, int finalM, int K,
+                          double[] genotypeB, double[] genotypeD, double[] micScales, double[] growthPenalties){
+        if(!(b >= 0.) || Double.isInfinite(b)) throw new IllegalArgumentException("b must be finite and >= 0: " + b);
+        if(!(d >= 0.) || Double.isInfinite(d)) throw new IllegalArgumentException("d must be finite and >= 0: " + d);
+        if(!(mu >= 0. && mu <= 1.)) throw new IllegalArgumentException("mu must be in [0, 1]: " + mu);
+        if(!(K_prime > 0.) || Double.isInfinite(K_prime)) throw new IllegalArgumentException("K_prime must be finite and > 0: " + K_prime);
+        if(finalM < 1) throw new IllegalArgumentException("need at least one genotype: " + finalM);
+        if(K < 0) throw new IllegalArgumentException("K must be >= 0: " + K);
+
+        this.b = b;
+        this.d = d;
+        this.mu = mu;
+        this.K_prime = K_prime;
+        this.finalM = finalM;
+        this.K = K;
+
+        this.genotypeB = perGenotype("migration rates", genotypeB, b, false, Double.MAX_VALUE, "finite and >= 0");
+        this.genotypeD = perGenotype("death rates", genotypeD, d, false, Double.MAX_VALUE, "finite and >= 0");
+        this.micScales = perGenotype("MIC scales", micScales, 1., true, Double.MAX_VALUE, "finite and > 0");
+        this.growthPenalties = perGenotype("growth penalties", growthPenalties, 0., false, 1., "in [0, 1]");
+    }
+
+    //checks a per-genotype table and copies it, or gives null if every genotype has the shared value
+    private double[] perGenotype(String name, double[] values, double shared, boolean positive, double max, String range){
+        if(values == null) return null;
+        if(values.length != finalM){
+            throw new IllegalArgumentException(name + " need one entry per genotype (" + finalM + "): " + Arrays.toString(values));
+        }
+        boolean allShared = true;
+        for(double v : values){
+            boolean inRange = (positive ? v > 0. : v >= 0.) && v <= max;
+            if(!inRange) throw new IllegalArgumentException(name + " must be " + range + ": " + Arrays.toString(values));
+            if(v != shared) allShared = false;
+        }
+        return allShared ? null : values.clone();
+    }
+
+    public double getB(){return b;}
+    public double getD(){return d;}
+    public double getMu(){return mu;}
+    public double getK_prime(){return K_prime;}
+    public int getFinalM(){return finalM;}
+    public int getK(){return K;}
+
+    //the rates of genotype m, 1 <= m <= finalM
+    public double getB(int m){return (genotypeB == null) ? b : genotypeB[m-1];}
+    public double getD(int m){return (genotypeD == null) ? d : genotypeD[m-1];}
+    public double getMicScale(int m){return (micScales == null) ? 1. : micScales[m-1];}
+    public double getGrowthPenalty(int m){return (growthPenalties == null) ? 0. : growthPenalties[m-1];}
+
+    //true if every genotype replicates at the same rate in the same microhabitat
+    public boolean hasSharedGrowthRates(){
+        return micScales == null && growthPenalties == null;
+    }
+
+    //true if every genotype has the same rates, so only the total population of a microhabitat matters
+    public boolean hasSharedRates(){
+        return hasSharedGrowthRates() && genotypeB == null && genotypeD == null;
+    }
+
+    public SimParameters withB(double b){return new SimParameters(b, d, mu, K_prime, finalM, K, genotypeB, genotypeD, micScales, growthPenalties);}
+    public SimParameters withD(double d){return new SimParameters(b, d, mu, K_prime, finalM, K, genotypeB, genotypeD, micScales, growthPenalties);}
+    public SimParameters withMu(double mu){return new SimParameters(b, d, mu, K_prime, finalM, K, genotypeB, genotypeD, micScales, growthPenalties);}
+    public SimParameters withK_prime(double K_prime){return new SimParameters(b, d, mu, K_prime, finalM, K, genotypeB, genotypeD, micScales, growthPenalties);}
+    public SimParameters withK(int K){return new SimParameters(b, d, mu, K_prime, finalM, K, genotypeB, genotypeD, micScales, growthPenalties);}
+    //the per-genotype tables have to be set again for the new no. of genotypes
+    public SimParameters withFinalM(int finalM){return new SimParameters(b, d, mu, K_prime, finalM, K);}
+
+    //per-genotype tables with one entry per genotype, or null to give every genotype the shared value
+    public SimParameters withMigrationRates(double... genotypeB){return new SimParameters(b, d, mu, K_prime, finalM, K, genotypeB, genotypeD, micScales, growthPenalties);}
+    public SimParameters withDeathRates(double... genotypeD){return new SimParameters(b, d, mu, K_prime, finalM, K, genotypeB, genotypeD, micScales, growthPenalties);}
+    public SimParameters withMicScales(double... micScales){return new SimParameters(b, d, mu, K_prime, finalM, K, genotypeB, genotypeD, micScales, growthPenalties);}
+    public SimParameters withGrowthPenalties(double... growthPenalties){return new SimParameters(b, d, mu, K_prime, finalM, K, genotypeB, genotypeD, micScales, growthPenalties);}
+
+    //a pathway where every mutation multiplies the MIC by micFactor and the replication rate by 1 - cost,
+    //so genotype m has MIC scale micFactor^(m-1) and growth penalty 1 - (1-cost)^(m-1)
+    public SimParameters withPathway(double micFactor, double cost){
+        if(!(micFactor > 0.) || Double.isInfinite(micFactor)) throw new IllegalArgumentException("micFactor must be finite and > 0: " + micFactor);
+        if(!(cost >= 0. && cost <= 1.)) throw new IllegalArgumentException("cost must be in [0, 1]: " + cost);
+
+        double[] scales = new double[finalM], penalties = new double[finalM];
+        for(int m = 1; m <= finalM; m++){
+            scales[m-1] = Math.pow(micFactor, m-1);
+            penalties[m-1] = 1. - Math.pow(1. - cost, m-1);
+        }
+        return new SimParameters(b, d, mu, K_prime, finalM, K, genotypeB, genotypeD, scales, penalties);
+    }
+
+    public String toString(){
+        String s = "b " + b + " d " + d + " mu " + mu + " K_prime " + K_prime + " finalM " + finalM + " K " + K;
+        if(genotypeB != null) s += " genotype b " + Arrays.toString(genotypeB);
+        if(genotypeD != null) s += " genotype d " + Arrays.toString(genotypeD);
+        if(micScales != null) s += " MIC scales " + Arrays.toString(micScales);
+        if(growthPenalties != null) s += " growth penalties " + Arrays.toString(growthPenalties);
+        return s;
+    }
+}
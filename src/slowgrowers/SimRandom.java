@@ -0,0 +1,144 @@
+package slowgrowers;
+
+public class SimRandom {
+
+    //SplitMix64 generator. It isn't synchronised, so draws in the event loop don't pay for the
+    //compare-and-set that java.util.Random does, and its whole state is two longs which can be
+    //recorded and restored. Independent streams are derived from a master seed and a stream index,
+    //so any replicate of a sweep can be re-run on its own.
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private long seed, gamma;
+    //where this stream came from, recorded in output files
+    private long masterSeed, streamIndex;
+
+    public SimRandom(long masterSeed, long streamIndex){
+        this.masterSeed = masterSeed;
+        this.streamIndex = streamIndex;
+        this.seed = mix64(masterSeed + streamIndex*GOLDEN_GAMMA);
+        this.gamma = mixGamma(seed + GOLDEN_GAMMA);
+    }
+
+    public SimRandom(long masterSeed){
+        this(masterSeed, 0L);
+    }
+
+    public SimRandom(){
+        this(mix64(System.nanoTime()) ^ mix64(Thread.currentThread().getId() + System.identityHashCode(new Object())));
+    }
+
+    //restores a generator from its recorded state
+    public static SimRandom fromState(long masterSeed, long streamIndex, long seed, long gamma){
+        SimRandom r = new SimRandom(masterSeed, streamIndex);
+        r.seed = seed;
+        r.gamma = gamma;
+        return r;
+    }
+
+    public long getMasterSeed(){return masterSeed;}
+    public long getStreamIndex(){return streamIndex;}
+    public long getState(){return seed;}
+    public long getGamma(){return gamma;}
+
+    public String describe(){
+        return "seed " + masterSeed + " stream " + streamIndex;
+    }
+
+    //a new stream derived from the same master seed
+    public SimRandom stream(long streamIndex){
+        return new SimRandom(masterSeed, streamIndex);
+    }
+
+    public long nextLong(){
+        seed += gamma;
+        return mix64(seed);
+    }
+
+    //uniform in [0, 1)
+    public double nextDouble(){
+        return (nextLong() >>> 11)*DOUBLE_UNIT;
+    }
+
+    //uniform in [0, bound), using Lemire's multiply-and-reject method so the result is unbiased
+    public int nextInt(int bound){
+        if(bound <= 0) throw new IllegalArgumentException("bound must be positive: " + bound);
+
+        long m = (nextLong() >>> 32)*bound;
+        long l = m & 0xffffffffL;
+        if(l < bound){
+            long threshold = (0x100000000L - bound) % bound;
+            while(l < threshold){
+                m = (nextLong() >>> 32)*bound;
+                l = m & 0xffffffffL;
+            }
+        }
+        return (int)(m >>> 32);
+    }
+
+    //poisson distributed no. of events with the given mean. Small means use the multiplication method,
+    //larger ones Hormann's transformed rejection (PTRS), both of which are exact.
+    public int nextPoisson(double mean){
+        if(mean <= 0.) return 0;
+
+        if(mean < 10.){
+            double limit = Math.exp(-mean);
+            double product = nextDouble();
+            int k = 0;
+            while(product > limit){
+                product *= nextDouble();
+                k++;
+            }
+            return k;
+        }
+
+        double sqrtMean = Math.sqrt(mean), logMean = Math.log(mean);
+        double b = 0.931 + 2.53*sqrtMean;
+        double a = -0.059 + 0.02483*b;
+        double invAlpha = 1.1239 + 1.1328/(b - 3.4);
+        double vR = 0.9277 - 3.6224/(b - 2.);
+
+        while(true){
+            double u = nextDouble() - 0.5;
+            double v = nextDouble();
+            double us = 0.5 - Math.abs(u);
+            int k = (int)Math.floor((2.*a/us + b)*u + mean + 0.43);
+
+            if(us >= 0.07 && v <= vR) return k;
+            if(k < 0 || (us < 0.013 && v > us)) continue;
+
+            if(Math.log(v) + Math.log(invAlpha) - Math.log(a/(us*us) + b) <= -mean + k*logMean - logFactorial(k)) return k;
+        }
+    }
+
+    private static final double[] LOG_FACTORIALS = new double[32];
+    static{
+        for(int k = 1; k < LOG_FACTORIALS.length; k++){
+            LOG_FACTORIALS[k] = LOG_FACTORIALS[k-1] + Math.log(k);
+        }
+    }
+
+    //log(k!), from a table for small k and Stirling's series otherwise
+    private static double logFactorial(int k){
+        if(k < LOG_FACTORIALS.length) return LOG_FACTORIALS[k];
+        double x = k + 1.;
+        double invX = 1./x, invX2 = invX*invX;
+        return (x - 0.5)*Math.log(x) - x + 0.5*Math.log(2.*Math.PI)
+                + invX*(1./12. - invX2*(1./360. - invX2*(1./1260. - invX2/1680.)));
+    }
+
+    private static long mix64(long z){
+        z = (z ^ (z >>> 30))*0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27))*0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    //gammas must be odd and have enough bit transitions to give a good sequence
+    private static long mixGamma(long z){
+        z = (z ^ (z >>> 33))*0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33))*0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int n = Long.bitCount(z ^ (z >>> 1));
+        return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
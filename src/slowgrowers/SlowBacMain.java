@@ -0,0 +1,57 @@
+package slowgrowers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+public class SlowBacMain {
+
+    //with no arguments this runs the default experiment. Otherwise each argument is a job file (see JobSpec)
+    //and every job in them is run in turn on this JVM, so only the first one pays for startup and JIT warm-up.
+    //a job which fails is reported and the rest still run.
+    public static void main(String[] args){
+
+        /*double alpha_specific = Math.log(11.5)/500.;
+        System.out.println(alpha_specific);
+        double c_500 = Math.exp(alpha_specific*500) - 1;
+        System.out.println(c_500);*/
+        if(args.length == 0){
+            BioSystem.spatialAndNutrientDistributions(0.02);
+            return;
+        }
+
+        ArrayList<JobSpec> jobs = new ArrayList<JobSpec>();
+        try{
+            for(String filename : args){
+                jobs.addAll(JobSpec.readJobFile(filename));
+            }
+        }catch(IOException | IllegalArgumentException e){
+            System.err.println("couldn't read jobs: " + e.getMessage());
+            System.exit(2);
+        }
+
+        int failed = 0;
+        for(int j = 0; j < jobs.size(); j++){
+            JobSpec job = jobs.get(j);
+            System.out.println("job " + (j+1) + "/" + jobs.size() + ": " + job);
+            long start = System.nanoTime();
+            try{
+                runJob(job);
+                System.out.println("job " + (j+1) + " finished in " + String.format("%.1f", (System.nanoTime() - start)*1e-9) + " s");
+            }catch(RuntimeException e){
+                failed++;
+                System.err.println("job " + (j+1) + " failed: " + e);
+                e.printStackTrace();
+            }
+        }
+        if(failed > 0){
+            System.err.println(failed + " of " + jobs.size() + " jobs failed");
+            System.exit(1);
+        }
+    }
+
+    public static void runJob(JobSpec job){
+        if(job.getType().equals(JobSpec.SPATIAL)) BioSystem.spatialAndNutrientDistributions(job);
+        else if(job.getType().equals(JobSpec.C_VS_S)) BioSystem.antibioticVsNutrients(job);
+        else if(job.getType().equals(JobSpec.ALPHA_VS_S)) BioSystem.antibioticGradientVsNutrients(job);
+    }
+}
@@ -0,0 +1,60 @@
+package slowgrowers;
+
+public class SteadyStateCondition implements TerminationCondition, SampleObserver {
+
+    //samples the total population every interval and is met once the average over the latest window of
+    //samples is within a relative tolerance of the average over the window before it.
+    //the samples are taken by a SampleObserver, so checking the condition after every event is just a flag.
+    //a condition made without a BioSystem is fed its samples through addSample, e.g. by an Ensemble.
+    private double tolerance;
+    private int window;
+    //the last 2*window samples, as a ring buffer
+    private double[] samples;
+    private int nSamples;
+    private boolean met = false;
+
+    public SteadyStateCondition(int window, double tolerance){
+        if(window < 1) throw new IllegalArgumentException("window must hold at least one sample: " + window);
+        if(tolerance < 0.) throw new IllegalArgumentException("tolerance can't be negative: " + tolerance);
+
+        this.window = window;
+        this.tolerance = tolerance;
+        this.samples = new double[2*window];
+    }
+
+    public SteadyStateCondition(BioSystem bs, double interval, int window, double tolerance){
+        this(window, tolerance);
+        bs.addObserver(this, interval);
+    }
+
+    public boolean isMet(BioSystem bs){
+        return met;
+    }
+
+    public boolean isMet(){
+        return met;
+    }
+
+    public void sample(BioSystem bs, double sampleTime){
+        if(addSample(bs.getCurrentPopulation())) bs.removeObserver(this);
+    }
+
+    //adds the next sample of the population and returns whether the condition is now met
+    public boolean addSample(double population){
+
+        samples[nSamples % samples.length] = population;
+        nSamples++;
+        if(nSamples < samples.length) return false;
+
+        double previous = 0., latest = 0.;
+        for(int k = 0; k < window; k++){
+            latest += samples[(nSamples - 1 - k) % samples.length];
+            previous += samples[(nSamples - 1 - window - k) % samples.length];
+        }
+        latest /= window;
+        previous /= window;
+
+        met = Math.abs(latest - previous) <= tolerance*Math.max(latest, 1.);
+        return met;
+    }
+}
@@ -0,0 +1,49 @@
+package slowgrowers;
+
+public class SumTree {
+
+    //complete binary tree of partial sums stored in an array. tree[1] is the root and the leaves
+    //live at [capacity, 2*capacity). Leaves are set directly and their ancestors recomputed, so
+    //no rounding error builds up from repeated incremental updates.
+    private double[] tree;
+    private int size, capacity;
+
+    public SumTree(int size){
+        this.size = size;
+        this.capacity = 1;
+        while(capacity < size) capacity *= 2;
+        this.tree = new double[2*capacity];
+    }
+
+    public int getSize(){return size;}
+
+    public double getTotal(){return tree[1];}
+
+    public double get(int i){return tree[capacity + i];}
+
+    public void set(int i, double value){
+        int p = capacity + i;
+        tree[p] = value;
+        for(p >>= 1; p > 0; p >>= 1){
+            tree[p] = tree[2*p] + tree[2*p+1];
+        }
+    }
+
+    //returns the leaf i such that the sum of the leaves before i is <= target < that sum plus leaf i.
+    //leaves with zero weight are never returned, even when rounding pushes target up to the total.
+    public int find(double target){
+        int p = 1;
+        double remaining = target;
+
+        while(p < capacity){
+            int left = 2*p;
+            if(tree[left+1] <= 0. || (remaining < tree[left] && tree[left] > 0.)){
+                p = left;
+            }else{
+                remaining -= tree[left];
+                p = left + 1;
+            }
+        }
+        return p - capacity;
+    }
+}
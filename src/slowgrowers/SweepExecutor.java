@@ -0,0 +1,269 @@
+package slowgrowers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+public class SweepExecutor {
+
+    //runs every (x, y, rep) point of a parameter sweep as an independent task on a work-stealing pool.
+    //each task gets its own SimRandom stream, derived from the master seed and the task's position
+    //in the grid, so the results don't depend on the order in which the tasks are scheduled and any
+    //single replicate can be re-run on its own with stream(i, j, rep).
+    private int nThreads;
+    private long masterSeed;
+    //where finished replicates are recorded, if anywhere. Replicates already in it aren't run again.
+    private SweepResultStore store;
+
+    public interface Replicate {
+        //runs a single replicate of grid point (i, j) and returns the measured value
+        double run(int i, int j, int rep, SimRandom rand);
+    }
+
+    public interface MultiValueReplicate {
+        //runs a single replicate of grid point (i, j) and returns every value it measured
+        double[] run(int i, int j, int rep, SimRandom rand);
+    }
+
+    public interface ReplicateEnsemble {
+        //runs replicates reps of grid point (i, j) together, rands[k] being the generator of replicate reps[k],
+        //and returns the measured value of each
+        double[] run(int i, int j, int[] reps, SimRandom[] rands);
+    }
+
+    public SweepExecutor(int nThreads, long masterSeed){
+        this.nThreads = nThreads;
+        this.masterSeed = masterSeed;
+    }
+
+    public SweepExecutor(){
+        this(Runtime.getRuntime().availableProcessors(), new SimRandom().nextLong());
+    }
+
+    public int getNThreads(){return nThreads;}
+    public long getMasterSeed(){return masterSeed;}
+
+    //the store's master seed replaces this executor's, so a restarted sweep repeats the same streams. When the
+    //seed was given explicitly, SweepResultStore.open has already checked that the two are the same.
+    //the store must have as many replicates per point as the sweep run with it (nReps or maxReps).
+    public void setResultStore(SweepResultStore store){
+        this.store = store;
+        if(store != null) this.masterSeed = store.getMasterSeed();
+    }
+
+    //returns results[i][j][rep]
+    public double[][][] run(int nX, int nY, int nReps, final Replicate replicate){
+
+        final double[][][] results = new double[nX][nY][nReps];
+
+        ArrayList<Callable<Void>> tasks = new ArrayList<Callable<Void>>(nX*nY*nReps);
+
+        for(int i = 0; i < nX; i++){
+            for(int j = 0; j < nY; j++){
+                addReplicates(tasks, results, i, j, 0, nReps, nY, nReps, replicate);
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(nThreads);
+        try{
+            invoke(pool, tasks);
+        }finally{
+            pool.shutdown();
+        }
+        return results;
+    }
+
+    //returns results[i][j][rep], the values measured by each replicate. A result store only holds one value
+    //per replicate, so these sweeps can't use one.
+    public double[][][][] runMultiValue(int nX, int nY, int nReps, final MultiValueReplicate replicate){
+
+        if(store != null) throw new IllegalStateException("a result store holds one value per replicate");
+
+        final double[][][][] results = new double[nX][nY][nReps][];
+        ArrayList<Callable<Void>> tasks = new ArrayList<Callable<Void>>(nX*nY*nReps);
+
+        for(int x = 0; x < nX; x++){
+            for(int y = 0; y < nY; y++){
+                for(int r = 0; r < nReps; r++){
+                    final int i = x, j = y, rep = r;
+                    final int finalNY = nY, finalNReps = nReps;
+                    tasks.add(new Callable<Void>() {
+                        public Void call(){
+                            results[i][j][rep] = replicate.run(i, j, rep, stream(i, j, rep, finalNY, finalNReps));
+                            return null;
+                        }
+                    });
+                }
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(nThreads);
+        try{
+            invoke(pool, tasks);
+        }finally{
+            pool.shutdown();
+        }
+        return results;
+    }
+
+    //runs replicates in rounds until rule is satisfied at every grid point. Each round adds a batch of
+    //replicates to the points which aren't precise enough yet, so the pool stays busy while finished
+    //points drop out. results[i][j] holds however many replicates point (i, j) needed.
+    public double[][][] run(int nX, int nY, ReplicateStoppingRule rule, final Replicate replicate){
+
+        int maxReps = rule.getMaxReps();
+        double[][][] values = new double[nX][nY][maxReps];
+        int[][] nDone = new int[nX][nY];
+
+        ForkJoinPool pool = new ForkJoinPool(nThreads);
+        try{
+            int nPending = nX*nY;
+            while(nPending > 0){
+
+                ArrayList<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+                for(int i = 0; i < nX; i++){
+                    for(int j = 0; j < nY; j++){
+                        if(nDone[i][j] > 0 && rule.isDone(values[i][j], nDone[i][j])) continue;
+
+                        int batch = (nDone[i][j] == 0) ? rule.getMinReps() : Math.min(rule.getBatchSize(), maxReps - nDone[i][j]);
+                        addReplicates(tasks, values, i, j, nDone[i][j], batch, nY, maxReps, replicate);
+                        nDone[i][j] += batch;
+                    }
+                }
+                invoke(pool, tasks);
+
+                nPending = 0;
+                for(int i = 0; i < nX; i++){
+                    for(int j = 0; j < nY; j++){
+                        if(!rule.isDone(values[i][j], nDone[i][j])) nPending++;
+                    }
+                }
+            }
+        }finally{
+            pool.shutdown();
+        }
+
+        double[][][] results = new double[nX][nY][];
+        for(int i = 0; i < nX; i++){
+            for(int j = 0; j < nY; j++){
+                results[i][j] = Arrays.copyOf(values[i][j], nDone[i][j]);
+            }
+        }
+        return results;
+    }
+
+    //runs the replicates of each grid point together as one task, e.g. as an Ensemble. Replicate rep gets
+    //the same stream as in the other run methods, and replicates already in the result store are left out.
+    //returns results[i][j][rep]
+    public double[][][] runEnsembles(int nX, int nY, final int nReps, final ReplicateEnsemble ensemble){
+
+        if(store != null && (store.getNY() != nY || store.getNReps() != nReps)){
+            throw new IllegalArgumentException("result store doesn't match the layout of the sweep");
+        }
+
+        final double[][][] results = new double[nX][nY][nReps];
+        ArrayList<Callable<Void>> tasks = new ArrayList<Callable<Void>>(nX*nY);
+
+        for(int x = 0; x < nX; x++){
+            for(int y = 0; y < nY; y++){
+                final int i = x, j = y;
+
+                int nMissing = 0;
+                int[] missing = new int[nReps];
+                for(int rep = 0; rep < nReps; rep++){
+                    if(store != null && store.isDone(i, j, rep)) results[i][j][rep] = store.get(i, j, rep);
+                    else missing[nMissing++] = rep;
+                }
+                if(nMissing == 0) continue;
+
+                final int[] reps = Arrays.copyOf(missing, nMissing);
+                final SimRandom[] rands = new SimRandom[nMissing];
+                for(int k = 0; k < nMissing; k++){
+                    rands[k] = stream(i, j, reps[k], nY, nReps);
+                }
+
+                tasks.add(new Callable<Void>() {
+                    public Void call(){
+                        double[] values = ensemble.run(i, j, reps, rands);
+                        for(int k = 0; k < reps.length; k++){
+                            results[i][j][reps[k]] = values[k];
+                            if(store != null) store.put(i, j, reps[k], values[k]);
+                        }
+                        return null;
+                    }
+                });
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(nThreads);
+        try{
+            invoke(pool, tasks);
+        }finally{
+            pool.shutdown();
+        }
+        return results;
+    }
+
+    //adds tasks for replicates [firstRep, firstRep + count) of grid point (i, j), storing them in results[i][j]
+    private void addReplicates(ArrayList<Callable<Void>> tasks, final double[][][] results, final int i, final int j,
+                               int firstRep, int count, final int nY, final int repStride, final Replicate replicate){
+
+        if(store != null && (store.getNY() != nY || store.getNReps() != repStride)){
+            throw new IllegalArgumentException("result store doesn't match the layout of the sweep");
+        }
+
+        for(int r = firstRep; r < firstRep + count; r++){
+            final int rep = r;
+
+            if(store != null && store.isDone(i, j, rep)){
+                results[i][j][rep] = store.get(i, j, rep);
+                continue;
+            }
+
+            tasks.add(new Callable<Void>() {
+                public Void call(){
+                    double value = replicate.run(i, j, rep, stream(i, j, rep, nY, repStride));
+                    results[i][j][rep] = value;
+                    if(store != null) store.put(i, j, rep, value);
+                    return null;
+                }
+            });
+        }
+    }
+
+    private static void invoke(ForkJoinPool pool, ArrayList<Callable<Void>> tasks){
+        try{
+            for(Future<Void> f : pool.invokeAll(tasks)){
+                f.get();
+            }
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("sweep was interrupted", e);
+        }catch(ExecutionException e){
+            throw new IllegalStateException("sweep replicate failed", e.getCause());
+        }
+    }
+
+    //the generator handed to replicate rep of grid point (i, j)
+    public SimRandom stream(int i, int j, int rep, int nY, int nReps){
+        return new SimRandom(masterSeed, ((long)i*nY + j)*nReps + rep);
+    }
+
+    //average over the replicates of each grid point, flattened with i as the outer index
+    public static double[] averageOverReps(double[][][] results){
+        double[] averages = new double[results.length*results[0].length];
+
+        int k = 0;
+        for(double[][] row : results){
+            for(double[] reps : row){
+                double runningTotal = 0.;
+                for(double r : reps) runningTotal += r;
+                averages[k++] = runningTotal/(double)reps.length;
+            }
+        }
+        return averages;
+    }
+}
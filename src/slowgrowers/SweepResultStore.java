@@ -0,0 +1,156 @@
+package slowgrowers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class SweepResultStore {
+
+    //per-replicate results of a sweep in a memory-mapped file with a fixed layout, indexed by
+    //(x index, y index, replicate). Workers write their result straight into the mapping as soon as a
+    //replicate finishes, so completed cells survive the process being killed, and a restarted sweep
+    //skips them. The master seed is stored too, so the restarted sweep draws the same streams, along with a
+    //hash of the sweep's description so the results of one sweep are never taken for another's.
+    //
+    //header (HEADER_BYTES): magic, version, nX, nY, nReps, unused, the master seed, then the sweep hash.
+    //record (RECORD_BYTES): double value, int status (1 once the value is written), int unused.
+    private static final int MAGIC = 0x53575052, VERSION = 2;
+    private static final int HEADER_BYTES = 64, RECORD_BYTES = 16;
+    private static final int DONE = 1;
+
+    private Path path;
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private int nX, nY, nReps;
+    private long masterSeed;
+
+    private SweepResultStore(){}
+
+    //opens the store at filename, creating it if it doesn't exist. description should name everything the
+    //results depend on apart from the seed, e.g. the parameters, duration and axes. An existing store must
+    //have the same dimensions and description. Its master seed is used in place of masterSeed, unless the
+    //seed was given explicitly (seedGiven), in which case the two must be the same.
+    public static SweepResultStore open(String filename, int nX, int nY, int nReps, String description,
+                                        long masterSeed, boolean seedGiven){
+
+        SweepResultStore store = new SweepResultStore();
+        store.nX = nX;
+        store.nY = nY;
+        store.nReps = nReps;
+        long sweepHash = hash(description);
+
+        Path path = Paths.get(filename);
+        store.path = path;
+        long size = HEADER_BYTES + (long)nX*nY*nReps*RECORD_BYTES;
+        try{
+            boolean exists = Files.exists(path) && Files.size(path) > 0;
+            store.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            if(exists && store.channel.size() != size){
+                store.channel.close();
+                throw new IllegalArgumentException(filename + " holds a sweep of a different size");
+            }
+            store.map = store.channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+            if(exists){
+                if(store.map.getInt(0) != MAGIC || store.map.getInt(4) != VERSION
+                        || store.map.getInt(8) != nX || store.map.getInt(12) != nY || store.map.getInt(16) != nReps){
+                    store.close();
+                    throw new IllegalArgumentException(filename + " isn't a result store for this sweep");
+                }
+                if(store.map.getLong(32) != sweepHash){
+                    store.close();
+                    throw new IllegalArgumentException(filename + " holds the results of a sweep with different settings,"
+                            + " delete it to start this one afresh");
+                }
+                store.masterSeed = store.map.getLong(24);
+                if(seedGiven && store.masterSeed != masterSeed){
+                    store.close();
+                    throw new IllegalArgumentException(filename + " holds the results of a sweep with master seed "
+                            + store.masterSeed + ", not " + masterSeed);
+                }
+            }else{
+                store.masterSeed = masterSeed;
+                store.map.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, nX).putInt(12, nY).putInt(16, nReps);
+                store.map.putLong(24, masterSeed).putLong(32, sweepHash);
+            }
+        }catch(IOException e){
+            throw new UncheckedIOException("couldn't open result store " + filename, e);
+        }
+        return store;
+    }
+
+    public int getNX(){return nX;}
+    public int getNY(){return nY;}
+    public int getNReps(){return nReps;}
+    public long getMasterSeed(){return masterSeed;}
+
+    private int offset(int i, int j, int rep){
+        if(i < 0 || i >= nX || j < 0 || j >= nY || rep < 0 || rep >= nReps){
+            throw new IndexOutOfBoundsException("(" + i + ", " + j + ", " + rep + ") is outside the sweep");
+        }
+        return HEADER_BYTES + ((i*nY + j)*nReps + rep)*RECORD_BYTES;
+    }
+
+    public boolean isDone(int i, int j, int rep){
+        return map.getInt(offset(i, j, rep) + 8) == DONE;
+    }
+
+    public double get(int i, int j, int rep){
+        return map.getDouble(offset(i, j, rep));
+    }
+
+    //the value is written before the status, so a cell is never marked done without its value.
+    //records are disjoint and only written with absolute puts, so workers can store results concurrently.
+    public void put(int i, int j, int rep, double value){
+        int offset = offset(i, j, rep);
+        map.putDouble(offset, value);
+        map.putInt(offset + 8, DONE);
+    }
+
+    public int countDone(){
+        int done = 0;
+        for(int i = 0; i < nX; i++){
+            for(int j = 0; j < nY; j++){
+                for(int r = 0; r < nReps; r++){
+                    if(isDone(i, j, r)) done++;
+                }
+            }
+        }
+        return done;
+    }
+
+    public void close(){
+        map.force();
+        try{
+            channel.close();
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //deletes the file of a closed store, once the sweep's results have been written out
+    public void delete(){
+        try{
+            Files.deleteIfExists(path);
+        }catch(IOException e){
+            throw new UncheckedIOException("couldn't delete result store " + path, e);
+        }
+    }
+
+    //64-bit FNV-1a hash of the description's UTF-8 bytes
+    private static long hash(String description){
+        long h = 0xcbf29ce484222325L;
+        for(byte b : description.getBytes(StandardCharsets.UTF_8)){
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+}
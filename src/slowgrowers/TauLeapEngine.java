@@ -0,0 +1,339 @@
+package slowgrowers;
+
+import java.util.Arrays;
+
+public class TauLeapEngine implements EventEngine {
+
+    //approximate scheme for large populations. Each call leaps the whole system forward by a time
+    //step tau, drawing poisson numbers of migrations (left and right), deaths and replications in
+    //every microhabitat from its rates at the start of the step.
+    //tau is chosen so the expected change in each microhabitat's population and nutrients is at most
+    //a fraction epsilon of their current values (Cao, Gillespie & Petzold's bound), and so no bacterium
+    //has more than a probability epsilon of taking part in an event during the leap. The second bound
+    //limits the error from children not replicating within the leap they were born in. Smaller
+    //epsilon is more accurate and slower. A leap which would leave a negative no. of bacteria or
+    //nutrients is thrown away and retried with half the step. When a leap would cover only a handful
+    //of events the engine does a batch of exact Gillespie events instead.
+    //a batch in progress isn't part of a BioSystem snapshot, so a run resumed from one starts with a
+    //leap and follows a different trajectory from the original, with the same distribution. Only the
+    //exact engines resume exactly.
+    private static final double MIN_EVENTS_PER_LEAP = 10.;
+    private static final int N_EXACT_EVENTS = 100;
+
+    protected BioSystem bs;
+    private double epsilon, maxTau;
+
+    private GillespieEngine exactEngine;
+    private int exactEventsLeft;
+
+    //changes drawn during a leap, only applied to the system once the whole leap has been accepted
+    protected int[][] countDeltas;
+    protected int[] nutrientsConsumed;
+    //no. of migrations, deaths and replications drawn during the leap, indexed by SimMetrics event type
+    protected long[] leapEvents = new long[3];
+
+    //the population, nutrients and replication rate of every microhabitat as flat arrays, kept up to date
+    //through microhabitatChanged, so the per-leap sums run over contiguous memory (see RateKernel).
+    //when every genotype has the same rates (sharedRates) the propensities and the bound on tau only
+    //need these totals, otherwise the engine goes through the per-genotype counts.
+    private double[] habitatN, habitatS, habitatRate;
+    private boolean sharedRates;
+    private double b, d;
+    //the microhabitats the current leap can change, from the occupied region of the system. Every loop over
+    //the microhabitats is restricted to these, so a leap costs O(occupied) rather than O(L).
+    private int leapFrom, leapTo;
+
+    public TauLeapEngine(double epsilon, double maxTau){
+        if(epsilon <= 0. || epsilon >= 1.) throw new IllegalArgumentException("epsilon must be in (0, 1): " + epsilon);
+        if(maxTau <= 0.) throw new IllegalArgumentException("maxTau must be positive: " + maxTau);
+        this.epsilon = epsilon;
+        this.maxTau = maxTau;
+    }
+
+    public TauLeapEngine(){
+        this(0.03, 1.);
+    }
+
+    public double getEpsilon(){return epsilon;}
+    public double getMaxTau(){return maxTau;}
+
+    public void initialise(BioSystem bs){
+        this.bs = bs;
+        this.countDeltas = new int[bs.getL()][bs.getParameters().getFinalM()];
+        this.nutrientsConsumed = new int[bs.getL()];
+        this.exactEngine = new GillespieEngine();
+        this.exactEventsLeft = 0;
+        this.leapFrom = 0;
+        this.leapTo = bs.getL();
+
+        this.b = bs.getBacteriaOfGenotype(1).getB();
+        this.d = bs.getBacteriaOfGenotype(1).getD();
+        this.sharedRates = bs.getParameters().hasSharedRates();
+
+        int L = bs.getL();
+        this.habitatN = new double[L];
+        this.habitatS = new double[L];
+        this.habitatRate = new double[L];
+        for(int i = 0; i < L; i++){
+            loadMicrohabitat(i);
+        }
+    }
+
+    public void microhabitatChanged(int i){
+        loadMicrohabitat(i);
+        //the exact engine's propensities are only kept up to date while it's in use
+        if(exactEventsLeft > 0) exactEngine.microhabitatChanged(i);
+    }
+
+    private void loadMicrohabitat(int i){
+        Microhabitat m = bs.getMicrohabitat(i);
+        habitatN[i] = m.getN();
+        habitatS[i] = m.getS();
+        habitatRate[i] = m.getGrowthRate();
+    }
+
+    public void performAction(){
+
+        if(exactEventsLeft > 0){
+            exactEngine.performAction();
+            exactEventsLeft--;
+            return;
+        }
+
+        SimMetrics metrics = bs.getMetrics();
+        long selectionStart = (metrics != null && metrics.sampleTiming()) ? System.nanoTime() : 0L;
+
+        double totalPropensity = totalPropensity();
+        if(totalPropensity <= 0.){
+            bs.advanceTime(Double.POSITIVE_INFINITY);
+            return;
+        }
+
+        double tau = selectTau();
+
+        if(tau*totalPropensity < MIN_EVENTS_PER_LEAP){
+            exactEngine.initialise(bs);
+            exactEventsLeft = N_EXACT_EVENTS;
+            performAction();
+            return;
+        }
+
+        long actionStart = (selectionStart != 0L) ? System.nanoTime() : 0L;
+
+        //a leap only changes the occupied region and the microhabitats either side of it
+        leapFrom = Math.max(bs.getOccupiedFrom() - 1, 0);
+        leapTo = Math.min(bs.getOccupiedTo() + 1, bs.getL());
+
+        while(!drawLeap(tau)){
+            clearLeap();
+            tau *= 0.5;
+        }
+
+        bs.advanceTime(tau);
+        for(int i = leapFrom; i < leapTo; i++){
+            if(changed(i)) bs.updateMicrohabitat(i, countDeltas[i], nutrientsConsumed[i]);
+        }
+
+        if(metrics != null){
+            for(int type = 0; type < leapEvents.length; type++) metrics.recordEvents(type, leapEvents[type]);
+            if(selectionStart != 0L) metrics.recordTiming(actionStart - selectionStart, System.nanoTime() - actionStart);
+        }
+        clearLeap();
+    }
+
+    protected double totalPropensity(){
+        return totalPropensity(0, bs.getL());
+    }
+
+    //total propensity of microhabitats [from, to)
+    protected double totalPropensity(int from, int to){
+        //empty microhabitats add nothing
+        from = Math.max(from, bs.getOccupiedFrom());
+        to = Math.min(to, bs.getOccupiedTo());
+        if(from >= to) return 0.;
+
+        if(sharedRates) return RateKernel.totalPropensity(habitatN, habitatRate, b + d, from, to);
+
+        double total = 0.;
+        for(int i = from; i < to; i++){
+            Microhabitat m = bs.getMicrohabitat(i);
+            for(int g = 1; g <= m.getFinalM(); g++){
+                int n_g = m.getGenotypeCount(g);
+                if(n_g == 0) continue;
+                Bacteria bac = bs.getBacteriaOfGenotype(g);
+                total += n_g*(bac.getB() + bac.getD() + m.getGrowthRate(g));
+            }
+        }
+        return total;
+    }
+
+    //largest step for which no microhabitat's population or nutrients are expected to change by more than
+    //a fraction epsilon (or by 1 when they're small), using both the mean and the variance of the change
+    protected double selectTau(){
+        return selectTau(0, bs.getL());
+    }
+
+    //the bound over microhabitats [from, to)
+    protected double selectTau(int from, int to){
+        //microhabitats more than one away from the occupied region can't change
+        from = Math.max(from, bs.getOccupiedFrom() - 1);
+        to = Math.min(to, bs.getOccupiedTo() + 1);
+        if(from >= to) return maxTau;
+
+        if(sharedRates) return selectTauShared(from, to);
+
+        int L = bs.getL();
+        double tau = maxTau;
+
+        for(int i = from; i < to; i++){
+            Microhabitat m = bs.getMicrohabitat(i);
+
+            double drift = 0., variance = 0., consumption = 0., maxPerBacterium = 0.;
+
+            for(int g = 1; g <= m.getFinalM(); g++){
+                Bacteria bac = bs.getBacteriaOfGenotype(g);
+                double halfB = 0.5*bac.getB();
+
+                int n_g = m.getGenotypeCount(g);
+                if(n_g > 0){
+                    double r = m.getGrowthRate(g);
+                    //migrations off the ends of the gradient don't happen
+                    double leaving = halfB*((i > 0 ? 1. : 0.) + (i < L-1 ? 1. : 0.));
+
+                    maxPerBacterium = Math.max(maxPerBacterium, r + bac.getD() + bac.getB());
+                    drift += n_g*(r - bac.getD() - leaving);
+                    variance += n_g*(r + bac.getD() + leaving);
+                    consumption += n_g*r;
+                }
+                //migrants arriving from the neighbours
+                int arriving = (i > 0 ? bs.getMicrohabitat(i-1).getGenotypeCount(g) : 0)
+                        + (i < L-1 ? bs.getMicrohabitat(i+1).getGenotypeCount(g) : 0);
+                drift += halfB*arriving;
+                variance += halfB*arriving;
+            }
+
+            if(maxPerBacterium > 0.) tau = Math.min(tau, epsilon/maxPerBacterium);
+
+            double bound = Math.max(epsilon*m.getN(), 1.);
+            if(drift != 0.) tau = Math.min(tau, bound/Math.abs(drift));
+            if(variance > 0.) tau = Math.min(tau, bound*bound/variance);
+
+            if(consumption > 0.){
+                double sBound = Math.max(epsilon*m.getS(), 1.);
+                tau = Math.min(tau, Math.min(sBound/consumption, sBound*sBound/consumption));
+            }
+        }
+        return tau;
+    }
+
+    //the same bound when every genotype has the same rates, so only the totals of each microhabitat matter
+    private double selectTauShared(int from, int to){
+
+        int L = bs.getL();
+        double tau = maxTau;
+        double halfB = 0.5*b;
+
+        for(int i = from; i < to; i++){
+            double n = habitatN[i];
+            //migrants arriving from the neighbours
+            double arriving = halfB*((i > 0 ? habitatN[i-1] : 0.) + (i < L-1 ? habitatN[i+1] : 0.));
+            if(n == 0. && arriving == 0.) continue;
+
+            double r = habitatRate[i];
+            //migrations off the ends of the gradient don't happen
+            double leaving = halfB*((i > 0 ? 1. : 0.) + (i < L-1 ? 1. : 0.));
+
+            if(n > 0.) tau = Math.min(tau, epsilon/(r + d + b));
+            double drift = n*(r - d - leaving) + arriving;
+            double variance = n*(r + d + leaving) + arriving;
+            double consumption = n*r;
+
+            double bound = Math.max(epsilon*n, 1.);
+            if(drift != 0.) tau = Math.min(tau, bound/Math.abs(drift));
+            if(variance > 0.) tau = Math.min(tau, bound*bound/variance);
+
+            if(consumption > 0.){
+                double sBound = Math.max(epsilon*habitatS[i], 1.);
+                tau = Math.min(tau, Math.min(sBound/consumption, sBound*sBound/consumption));
+            }
+        }
+        return tau;
+    }
+
+    //draws the events of a leap of length tau into countDeltas and nutrientsConsumed.
+    //returns false if the leap would take any count below zero, the caller then clears it.
+    protected boolean drawLeap(double tau){
+        return drawLeap(tau, 0, bs.getL(), bs.rand, null, null, leapEvents);
+    }
+
+    //draws the events of microhabitats [from, to) with the given generator. Migrants leaving the range
+    //are added to leftHalo/rightHalo (per genotype) rather than to the neighbouring microhabitat, so
+    //disjoint ranges can be drawn at the same time. The no. of events of each type are added to events.
+    protected boolean drawLeap(double tau, int from, int to, SimRandom rand, int[] leftHalo, int[] rightHalo, long[] events){
+
+        int L = bs.getL();
+
+        //only occupied microhabitats draw events, but from and to still decide which migrants go to the halos
+        int first = Math.max(from, bs.getOccupiedFrom()), last = Math.min(to, bs.getOccupiedTo());
+        for(int i = first; i < last; i++){
+            Microhabitat m = bs.getMicrohabitat(i);
+            if(m.getN() == 0) continue;
+
+            int finalM = m.getFinalM();
+            int replications = 0;
+
+            for(int g = 1; g <= finalM; g++){
+                int n_g = m.getGenotypeCount(g);
+                if(n_g == 0) continue;
+
+                Bacteria bac = bs.getBacteriaOfGenotype(g);
+                double halfBTau = 0.5*bac.getB()*tau;
+
+                int left = (i > 0) ? rand.nextPoisson(n_g*halfBTau) : 0;
+                int right = (i < L-1) ? rand.nextPoisson(n_g*halfBTau) : 0;
+                int deaths = rand.nextPoisson(n_g*bac.getD()*tau);
+
+                if(left + right + deaths > n_g) return false;
+
+                //a replication produces a child of genotype g, or with probability mu a neighbouring genotype
+                double rTau = m.getGrowthRate(g)*tau;
+                double mu = bac.getMu();
+                int sameGenotype = rand.nextPoisson(n_g*rTau*(1. - mu));
+                int mutatedUp = (mu > 0.) ? rand.nextPoisson(n_g*rTau*0.5*mu) : 0;
+                int mutatedDown = (mu > 0.) ? rand.nextPoisson(n_g*rTau*0.5*mu) : 0;
+                replications += sameGenotype + mutatedUp + mutatedDown;
+                events[SimMetrics.MIGRATION] += left + right;
+                events[SimMetrics.DEATH] += deaths;
+
+                countDeltas[i][g-1] += sameGenotype - left - right - deaths;
+                countDeltas[i][Math.min(g+1, finalM)-1] += mutatedUp;
+                countDeltas[i][Math.max(g-1, 1)-1] += mutatedDown;
+                if(i > from) countDeltas[i-1][g-1] += left;
+                else if(i > 0) leftHalo[g-1] += left;
+                if(i < to-1) countDeltas[i+1][g-1] += right;
+                else if(i < L-1) rightHalo[g-1] += right;
+            }
+
+            if(replications > m.getS()) return false;
+            nutrientsConsumed[i] = replications;
+            events[SimMetrics.REPLICATION] += replications;
+        }
+        return true;
+    }
+
+    private boolean changed(int i){
+        if(nutrientsConsumed[i] != 0) return true;
+        for(int delta : countDeltas[i]){
+            if(delta != 0) return true;
+        }
+        return false;
+    }
+
+    protected void clearLeap(){
+        for(int i = leapFrom; i < leapTo; i++){
+            Arrays.fill(countDeltas[i], 0);
+            nutrientsConsumed[i] = 0;
+        }
+        Arrays.fill(leapEvents, 0L);
+    }
+}
@@ -0,0 +1,7 @@
+package slowgrowers;
+
+public interface TerminationCondition {
+
+    //checked after every event by BioSystem.run(), so it should be cheap
+    boolean isMet(BioSystem bs);
+}
@@ -0,0 +1,82 @@
+package slowgrowers;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+public class TextTimeSeriesSink implements TimeSeriesSink {
+
+    //space separated rows of "time series v_0 v_1 ... v_L-1", with the series names and any header
+    //written as '#' comment lines. Whole numbers (populations, nutrients) are written without a
+    //decimal part. One StringBuilder is reused for every row.
+    private FileOutputStream out;
+    private BufferedWriter bw;
+    private String[] seriesNames;
+    private StringBuilder row = new StringBuilder(4096);
+
+    public TextTimeSeriesSink(String filename, String[] seriesNames, String header, long resumeAt){
+        this.seriesNames = seriesNames;
+        try{
+            out = new FileOutputStream(filename, resumeAt >= 0);
+            if(resumeAt >= 0) out.getChannel().truncate(resumeAt);
+            bw = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+            if(out.getChannel().size() == 0){
+                if(header != null) bw.write("# " + header + "\n");
+                bw.write("# time series values, series:");
+                for(int i = 0; i < seriesNames.length; i++){
+                    bw.write(" " + i + "=" + seriesNames[i]);
+                }
+                bw.write("\n");
+            }
+        }catch(IOException e){
+            throw new UncheckedIOException("couldn't open " + filename, e);
+        }
+    }
+
+    public void writeRow(double time, int series, double[] values){
+        if(series < 0 || series >= seriesNames.length) throw new IllegalArgumentException("unknown series " + series);
+
+        row.setLength(0);
+        row.append(time).append(' ').append(series);
+        for(double v : values){
+            row.append(' ');
+            if(v == (long)v) row.append((long)v);
+            else row.append(v);
+        }
+        row.append('\n');
+
+        try{
+            bw.append(row);
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void flush(){
+        try{
+            bw.flush();
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long sync(){
+        flush();
+        try{
+            return out.getChannel().size();
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void close(){
+        try{
+            bw.close();
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package slowgrowers;
+
+public interface TimeSeriesSink extends Checkpointer.Output {
+
+    //streams snapshots of a run to one open file. Every row is a time, the index of the series it belongs
+    //to (e.g. population or nutrients) and one value per microhabitat.
+    //failures are thrown as UncheckedIOExceptions rather than being lost.
+    //A sink opened with resumeAt >= 0 carries on an existing file: the file is cut back to its first
+    //resumeAt bytes, dropping any rows written after the checkpoint a run resumed from, and the rows go
+    //on the end. Long.MAX_VALUE appends without cutting anything. resumeAt < 0 starts a new file.
+
+    void writeRow(double time, int series, double[] values);
+
+    void flush();
+
+    void close();
+}
@@ -0,0 +1,70 @@
+package slowgrowers;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+
+public class Toolbox {
+
+    //header is written as a '#' comment line at the top of the file, e.g. to record the seed of the run.
+    //yData and zData hold yData.length/xData.length values for each x, yData repeating the same ones each time
+    public static void writeContoursToFile(double[] xData, double[] yData, double[] zData, String filename, String header){
+
+        int nY = yData.length/xData.length;
+        double[] yAxis = new double[nY];
+        System.arraycopy(yData, 0, yAxis, 0, nY);
+        writeGridToFile(xData, yAxis, zData, filename, header);
+    }
+
+    //contours over an xAxis.length by yAxis.length grid, with zData[i*yAxis.length + j] the value at (xAxis[i], yAxis[j]).
+    //the output has the same layout as writeContoursToFile, a blank line after each x.
+    public static void writeGridToFile(double[] xAxis, double[] yAxis, double[] zData, String filename, String header){
+
+        if(zData.length != xAxis.length*yAxis.length){
+            throw new IllegalArgumentException("expected " + xAxis.length*yAxis.length + " values, got " + zData.length);
+        }
+
+        try{
+            BufferedWriter bw = new BufferedWriter(new FileWriter(new File(filename+".txt").getAbsoluteFile()));
+
+            writeHeader(bw, header);
+
+            for(int i = 0; i < xAxis.length; i++){
+                for(int j = 0; j < yAxis.length; j++){
+                    bw.write(String.valueOf(xAxis[i]) + " " + String.valueOf(yAxis[j]) + " " + String.valueOf(zData[i*yAxis.length + j]));
+                    bw.newLine();
+                }
+                bw.newLine();
+            }
+            bw.close();
+        }catch(IOException e){
+            throw new UncheckedIOException("couldn't write " + filename + ".txt", e);
+        }
+    }
+
+    //opens a streaming sink for the snapshots of a run, format is "text" (filename.txt) or "binary" (filename.bin).
+    //with resumeAt >= 0 the rows go on the end of an existing file, cut back to resumeAt bytes, e.g. when a run
+    //is resumed from a checkpoint (see TimeSeriesSink). resumeAt < 0 starts a new file.
+    public static TimeSeriesSink openTimeSeries(String filename, String format, String[] seriesNames, String header, long resumeAt){
+        if(format.equals("text")) return new TextTimeSeriesSink(filename+".txt", seriesNames, header, resumeAt);
+        if(format.equals("binary")) return new BinaryTimeSeriesSink(filename+".bin", seriesNames, header, resumeAt);
+        throw new IllegalArgumentException("unknown time series format: " + format);
+    }
+
+    public static double[] toArray(ArrayList<Double> data){
+        double[] values = new double[data.size()];
+        for(int i = 0; i < values.length; i++){
+            values[i] = data.get(i);
+        }
+        return values;
+    }
+
+    private static void writeHeader(BufferedWriter bw, String header) throws IOException{
+        if(header == null) return;
+        bw.write("# "+header);
+        bw.newLine();
+    }
+}
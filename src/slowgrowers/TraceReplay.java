@@ -0,0 +1,194 @@
+package slowgrowers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class TraceReplay {
+
+    //rebuilds the states a traced BioSystem went through by applying the records of its EventTrace to
+    //the snapshot the trace starts with. Nothing is simulated and no random numbers are drawn, so
+    //moving through a trace costs a few ns per recorded change. Observers added to getSystem() are
+    //called at the same times, with the same states, as they would have been during the run.
+    private static final int READ_RECORDS = 8192;
+
+    private FileChannel channel;
+    private ByteBuffer records;
+    private BioSystem bs;
+    private boolean ended = false;
+    private double endTime = Double.POSITIVE_INFINITY;
+
+    private int[] countDeltas;
+
+    public TraceReplay(String filename) throws IOException{
+
+        channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+
+        ByteBuffer header = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(header);
+        if(header.getInt() != EventTrace.MAGIC) throw new IllegalArgumentException(filename + " isn't an event trace");
+        int version = header.getInt();
+        if(version != EventTrace.VERSION) throw new IllegalArgumentException("unsupported trace version " + version);
+
+        ByteBuffer snapshot = ByteBuffer.allocate(header.getInt());
+        readFully(snapshot);
+        bs = BioSystem.fromSnapshot(snapshot);
+        //the nutrients moved by a transport are in the trace, so the replayed system doesn't move any itself
+        bs.setNutrientTransport(null);
+        countDeltas = new int[bs.getParameters().getFinalM()];
+
+        records = ByteBuffer.allocateDirect(READ_RECORDS*EventTrace.RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        records.limit(0);
+    }
+
+    //the replayed system, in the state it had at the time it's been moved to
+    public BioSystem getSystem(){return bs;}
+
+    public boolean hasEnded(){return ended;}
+
+    //the time the trace was closed at, known once the replay has reached it
+    public double getEndTime(){return endTime;}
+
+    private void readFully(ByteBuffer buffer) throws IOException{
+        while(buffer.hasRemaining()){
+            if(channel.read(buffer) < 0) throw new IOException("trace ends part way through its header");
+        }
+        buffer.flip();
+    }
+
+    //whether another record can be read, refilling the buffer from the file if needed
+    private boolean fillRecords() throws IOException{
+        if(records.remaining() >= EventTrace.RECORD_BYTES) return true;
+        records.compact();
+        while(records.position() < EventTrace.RECORD_BYTES && channel.read(records) >= 0){}
+        records.flip();
+        return records.remaining() >= EventTrace.RECORD_BYTES;
+    }
+
+    //applies every change up to and including time, then sets the clock to time (or to the end of the trace
+    //if that's earlier). Returns false once the end of the trace has been reached.
+    public boolean advanceTo(double time){
+        try{
+            while(!ended){
+                //a trace without an END record was cut short, e.g. by the run being killed, and stops at its last record
+                if(!fillRecords()){
+                    ended = true;
+                    endTime = bs.getTimeElapsed();
+                    break;
+                }
+                int p = records.position();
+                double recordTime = records.getDouble(p);
+                if(recordTime > time) break;
+
+                int i = records.getInt(p + 8);
+                byte type = records.get(p + 12);
+                int genotype = records.get(p + 13);
+                int count = records.getInt(p + 16);
+                records.position(p + EventTrace.RECORD_BYTES);
+
+                //samples due at the record's time see the state before it, as they did during the run
+                if(recordTime >= bs.getTimeElapsed()) bs.advanceTimeTo(recordTime);
+                apply(i, type, genotype, count);
+                if(type == EventTrace.END){
+                    ended = true;
+                    endTime = recordTime;
+                }
+            }
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+        if(!ended && time > bs.getTimeElapsed()) bs.advanceTimeTo(time);
+        return !ended;
+    }
+
+    private void apply(int i, byte type, int genotype, int count){
+        switch(type){
+            case EventTrace.MIGRATION:
+                change(i, genotype, -1, 0);
+                change(i + count, genotype, 1, 0);
+                break;
+            case EventTrace.DEATH:
+                change(i, genotype, -count, 0);
+                break;
+            case EventTrace.REPLICATION:
+                change(i, genotype, count, bs.getMicrohabitat(i).getS() > 0 ? 1 : 0);
+                break;
+            case EventTrace.COUNT_CHANGE:
+                change(i, genotype, count, 0);
+                break;
+            case EventTrace.NUTRIENTS:
+                change(i, 1, 0, count);
+                break;
+            case EventTrace.END:
+                break;
+            default:
+                throw new IllegalStateException("unknown trace record type " + type);
+        }
+    }
+
+    private void change(int i, int genotype, int delta, int nutrientsConsumed){
+        countDeltas[genotype-1] = delta;
+        bs.updateMicrohabitat(i, countDeltas, nutrientsConsumed);
+        countDeltas[genotype-1] = 0;
+    }
+
+    public void close() throws IOException{
+        channel.close();
+    }
+
+    //the state of the traced system at time
+    public static BioSystem stateAt(String filename, double time) throws IOException{
+        TraceReplay replay = new TraceReplay(filename);
+        try{
+            replay.advanceTo(time);
+            return replay.getSystem();
+        }finally{
+            replay.close();
+        }
+    }
+
+    //writes the population, growth rate and nutrient distributions of a trace every interval, the same
+    //series spatialAndNutrientDistributions writes during a run, to output in the given format
+    public static void writeFrames(String filename, double interval, String output, String format) throws IOException{
+
+        final TraceReplay replay = new TraceReplay(filename);
+        final BioSystem bs = replay.getSystem();
+        final int POPULATION = 0, GROWTH_RATE = 1, NUTRIENTS = 2;
+        String[] seriesNames = {"population", "growthRate", "nutrients"};
+
+        final TimeSeriesSink sink = Toolbox.openTimeSeries(output, format, seriesNames,
+                "replayed from " + filename + ", " + bs.getRand().describe() + ", L " + bs.getL(), -1L);
+        final double[] values = new double[bs.getL()];
+
+        bs.addObserver(new SampleObserver() {
+            public void sample(BioSystem bs, double sampleTime){
+                bs.getSpatialDistribution(values);
+                sink.writeRow(sampleTime, POPULATION, values);
+                bs.getGrowthRateDistributions(values);
+                sink.writeRow(sampleTime, GROWTH_RATE, values);
+                bs.getNutrientDistribution(values);
+                sink.writeRow(sampleTime, NUTRIENTS, values);
+            }
+        }, interval);
+
+        try{
+            while(replay.advanceTo(bs.getTimeElapsed() + 100.*interval)){}
+        }finally{
+            sink.close();
+            replay.close();
+        }
+    }
+
+    //usage: TraceReplay trace interval output [text|binary]
+    public static void main(String[] args) throws IOException{
+        if(args.length < 3){
+            System.err.println("usage: TraceReplay trace interval output [text|binary]");
+            System.exit(2);
+        }
+        writeFrames(args[0], Double.parseDouble(args[1]), args[2], args.length > 3 ? args[3] : "text");
+    }
+}
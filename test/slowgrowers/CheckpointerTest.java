@@ -0,0 +1,62 @@
+package slowgrowers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CheckpointerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void resumesFromTheLastCheckpoint() throws IOException{
+        String filename = new File(folder.getRoot(), "run.checkpoint").getPath();
+        BioSystem bs = newSystem();
+        Checkpointer checkpointer = new Checkpointer(filename, 1.);
+        while(bs.getTimeElapsed() <= 3.5){
+            bs.performAction();
+            checkpointer.update(bs);
+        }
+        checkpointer.checkpoint(bs);
+        checkpointer.close(false);
+
+        BioSystem resumed = new Checkpointer(filename, 1.).resume();
+        assertEquals(bs.toSnapshot(), resumed.toSnapshot());
+    }
+
+    //a write which fails in the background is thrown at the next checkpoint, not only once the run is over
+    @Test
+    public void aFailedWriteIsThrownByTheNextCheckpoint() throws InterruptedException{
+        String filename = new File(folder.getRoot(), "missing/run.checkpoint").getPath();
+        BioSystem bs = newSystem();
+        Checkpointer checkpointer = new Checkpointer(filename, 1.);
+        checkpointer.checkpoint(bs);
+
+        //the first write fails on the writer thread
+        for(int k = 0; k < 100; k++){
+            Thread.sleep(20);
+            try{
+                checkpointer.checkpoint(bs);
+            }catch(UncheckedIOException e){
+                assertTrue(e.getMessage(), e.getMessage().contains("run.checkpoint"));
+                return;
+            }
+        }
+        fail("the failed write wasn't reported");
+    }
+
+    private static BioSystem newSystem(){
+        BioSystem bs = new BioSystem(30, 300, 0.03);
+        bs.setRand(new SimRandom(17));
+        return bs;
+    }
+}
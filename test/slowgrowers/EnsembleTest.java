@@ -0,0 +1,72 @@
+package slowgrowers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class EnsembleTest {
+
+    private static final int L = 20, S = 200, N_REPS = 400;
+    private static final double ALPHA = 0.05, DURATION = 10.;
+    private static final SimParameters PARAMS = SimParameters.DEFAULT.withMu(0.01);
+
+    //an Ensemble skips the RejectionEngine's null steps, but its replicates must end up distributed the
+    //same way as BioSystems run with it: compared on the population, the nutrients left and the no. of
+    //the final genotype, each with its own seeds
+    @Test
+    public void replicatesAreDistributedLikeBioSystems(){
+        SimRandom[] rands = new SimRandom[N_REPS];
+        for(int r = 0; r < N_REPS; r++) rands[r] = new SimRandom(1L, r);
+        Ensemble ensemble = new Ensemble(PARAMS, L, S, ALPHA, rands);
+        ensemble.run(DURATION);
+
+        double[][] ensembleValues = new double[3][N_REPS], systemValues = new double[3][N_REPS];
+        for(int r = 0; r < N_REPS; r++){
+            double nutrients = 0., mutants = 0.;
+            for(int i = 0; i < L; i++){
+                nutrients += ensemble.getNutrients(r, i);
+                mutants += ensemble.getGenotypeCount(r, i, PARAMS.getFinalM());
+            }
+            ensembleValues[0][r] = ensemble.getPopulation(r);
+            ensembleValues[1][r] = nutrients;
+            ensembleValues[2][r] = mutants;
+
+            BioSystem bs = new BioSystem(PARAMS, L, S, ALPHA);
+            bs.setRand(new SimRandom(2L, r));
+            bs.run(DURATION);
+            nutrients = 0.;
+            mutants = 0.;
+            for(int i = 0; i < L; i++){
+                Microhabitat m = bs.getMicrohabitat(i);
+                nutrients += m.getS();
+                mutants += m.getGenotypeCount(PARAMS.getFinalM());
+            }
+            systemValues[0][r] = bs.getCurrentPopulation();
+            systemValues[1][r] = nutrients;
+            systemValues[2][r] = mutants;
+        }
+
+        String[] names = {"population", "nutrients", "mutants"};
+        for(int q = 0; q < names.length; q++){
+            double[] e = ensembleValues[q], s = systemValues[q];
+            double meanE = mean(e), meanS = mean(s), varE = variance(e), varS = variance(s);
+            //within 4 standard errors of the difference
+            assertEquals(names[q] + " mean", meanS, meanE, 4.*Math.sqrt((varE + varS)/N_REPS));
+            //the mutant counts are too heavy-tailed for their variances to settle, the population's must be within 30%
+            if(q == 0) assertTrue("population variance " + varE + " vs " + varS, Math.abs(varE - varS) <= 0.3*Math.max(varE, varS));
+        }
+    }
+
+    private static double mean(double[] values){
+        double total = 0.;
+        for(double v : values) total += v;
+        return total/values.length;
+    }
+
+    private static double variance(double[] values){
+        double mean = mean(values), sumSq = 0.;
+        for(double v : values) sumSq += (v - mean)*(v - mean);
+        return sumSq/(values.length - 1);
+    }
+}
@@ -0,0 +1,56 @@
+package slowgrowers;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class FenwickTreeTest {
+
+    @Test
+    public void findMatchesALinearScan(){
+        SimRandom rand = new SimRandom(1);
+        int[] counts = new int[37];
+        for(int i = 0; i < counts.length; i++){
+            //a few empty microhabitats, which find must never return
+            counts[i] = (i % 5 == 2) ? 0 : rand.nextInt(20) + 1;
+        }
+        FenwickTree tree = new FenwickTree(counts);
+
+        for(int target = 0; target < tree.getTotal(); target++){
+            assertEquals("target " + target, linearFind(counts, target), tree.find(target));
+        }
+    }
+
+    @Test
+    public void addKeepsSumsAndFindUpToDate(){
+        int[] counts = new int[10];
+        FenwickTree tree = new FenwickTree(counts.length);
+        SimRandom rand = new SimRandom(2);
+
+        for(int step = 0; step < 1000; step++){
+            int i = rand.nextInt(counts.length);
+            int delta = (counts[i] > 0 && rand.nextDouble() < 0.4) ? -1 : 1;
+            counts[i] += delta;
+            tree.add(i, delta);
+
+            int prefix = 0;
+            for(int j = 0; j < counts.length; j++){
+                assertEquals(prefix, tree.prefixSum(j));
+                assertEquals(counts[j], tree.get(j));
+                prefix += counts[j];
+            }
+            assertEquals(prefix, tree.getTotal());
+            int target = rand.nextInt(prefix);
+            assertEquals(linearFind(counts, target), tree.find(target));
+        }
+    }
+
+    private static int linearFind(int[] counts, int target){
+        int i = 0;
+        while(target >= counts[i]){
+            target -= counts[i];
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,123 @@
+package slowgrowers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JobSpecTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void parseReadsTheTypeAndSettings(){
+        JobSpec job = JobSpec.parse("  alpha-vs-S alphaMax=0.2 reps=3\tseed=42 ");
+        assertEquals(JobSpec.ALPHA_VS_S, job.getType());
+        assertEquals(0.2, job.getDouble("alphaMax", 0.1), 0.);
+        assertEquals(3, job.getInt("reps", 5));
+        assertEquals(42L, job.getLong("seed", 0L));
+        //settings the job doesn't give keep the caller's default
+        assertFalse(job.has("alphaMin"));
+        assertEquals(0.05, job.getDouble("precision", 0.05), 0.);
+    }
+
+    @Test
+    public void parseRejectsMistakes(){
+        assertRejected("contour alpha=0.02");
+        assertRejected("spatial alpha");
+        assertRejected("spatial =0.02");
+        //a setting of another job type
+        assertRejected("spatial cMin=1");
+        assertRejected("c-vs-S precision=0.05");
+    }
+
+    @Test
+    public void parseRejectsSweepsWithoutGridPointsOrReplicates(){
+        assertRejected("c-vs-S cPoints=0");
+        assertRejected("alpha-vs-S alphaPoints=-1");
+        assertRejected("alpha-vs-S sPoints=0");
+        assertRejected("c-vs-S cMin=5 cMax=2");
+        assertRejected("alpha-vs-S sMin=500 sMax=100");
+        //checked against the default of the setting which isn't given
+        assertRejected("c-vs-S cMin=20");
+        assertRejected("alpha-vs-S alphaMax=-0.1");
+        assertRejected("alpha-vs-S reps=0");
+
+        //a single value on an axis, or a single replicate, is a sweep
+        JobSpec.parse("c-vs-S cMin=2 cMax=2 cPoints=1 sMin=100 sMax=100 reps=1");
+        JobSpec.parse("alpha-vs-S alphaMin=0.05 alphaMax=0.05 reps=1");
+    }
+
+    @Test
+    public void earlyStoppingSettingsNeedWhatTheyRefineToBeGiven(){
+        assertRejected("alpha-vs-S steadyWindow=3");
+        assertRejected("c-vs-S steadyTolerance=0.01");
+        assertRejected("alpha-vs-S precision=0.05 reps=1");
+
+        JobSpec.parse("alpha-vs-S steadyInterval=5 steadyWindow=3 steadyTolerance=0.01 precision=0.05 reps=2");
+    }
+
+    @Test
+    public void valuesOfTheWrongTypeAreRejectedWhenRead(){
+        JobSpec job = JobSpec.parse("spatial alpha=lots duration=2.5");
+        try{
+            job.getDouble("alpha", 0.01);
+            fail("alpha=lots was read as a number");
+        }catch(IllegalArgumentException e){
+            assertTrue(e.getMessage(), e.getMessage().contains("alpha"));
+        }
+        try{
+            job.getInt("duration", 500);
+            fail("duration=2.5 was read as an integer");
+        }catch(IllegalArgumentException e){
+            assertTrue(e.getMessage(), e.getMessage().contains("duration"));
+        }
+    }
+
+    @Test
+    public void readJobFileSkipsCommentsAndReportsTheLineOfAMistake() throws IOException{
+        File file = folder.newFile("jobs.txt");
+        write(file, "# two sweeps\n\nc-vs-S reps=2 # the default grid\nalpha-vs-S alphaMax=0.1\n");
+        ArrayList<JobSpec> jobs = JobSpec.readJobFile(file.getPath());
+        assertEquals(2, jobs.size());
+        assertEquals(JobSpec.C_VS_S, jobs.get(0).getType());
+        assertEquals(2, jobs.get(0).getInt("reps", 1));
+        assertEquals(JobSpec.ALPHA_VS_S, jobs.get(1).getType());
+
+        write(file, "spatial alpha=0.02\nc-vs-S cPoints=0\n");
+        try{
+            JobSpec.readJobFile(file.getPath());
+            fail("cPoints=0 was accepted");
+        }catch(IllegalArgumentException e){
+            assertTrue(e.getMessage(), e.getMessage().contains(file.getPath() + ":2:"));
+        }
+    }
+
+    private static void assertRejected(String line){
+        try{
+            JobSpec.parse(line);
+            fail(line + " was accepted");
+        }catch(IllegalArgumentException e){
+            //expected
+        }
+    }
+
+    private static void write(File file, String contents) throws IOException{
+        FileWriter writer = new FileWriter(file);
+        try{
+            writer.write(contents);
+        }finally{
+            writer.close();
+        }
+    }
+}
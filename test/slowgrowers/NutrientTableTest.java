@@ -0,0 +1,42 @@
+package slowgrowers;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class NutrientTableTest {
+
+    //every thread asking for the same s_max and K_prime at once gets the one shared table
+    @Test
+    public void concurrentCallersShareOneTable() throws Exception{
+        final int s_max = 7919;
+        final double K_prime = 37.5;
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try{
+            ArrayList<Callable<NutrientTable>> tasks = new ArrayList<Callable<NutrientTable>>();
+            for(int k = 0; k < 64; k++){
+                tasks.add(new Callable<NutrientTable>() {
+                    public NutrientTable call(){
+                        return NutrientTable.forS_max(s_max, K_prime);
+                    }
+                });
+            }
+            //no other test uses this s_max, so the table is made by one of the tasks
+            ArrayList<Future<NutrientTable>> tables = new ArrayList<Future<NutrientTable>>(pool.invokeAll(tasks));
+            for(Future<NutrientTable> f : tables){
+                assertSame(tables.get(0).get(), f.get());
+            }
+            assertSame(tables.get(0).get(), NutrientTable.forS_max(s_max, K_prime));
+        }finally{
+            pool.shutdown();
+        }
+        assertNotSame(NutrientTable.forS_max(s_max, K_prime), NutrientTable.forS_max(s_max+1, K_prime));
+    }
+}
@@ -0,0 +1,75 @@
+package slowgrowers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class NutrientTransportTest {
+
+    private static final int L = 40, S = 300;
+
+    //diffusion only moves nutrients around, so what's in the microhabitats plus what the bacteria have
+    //used up (one unit per replication) stays what the gradient started with
+    @Test
+    public void diffusionConservesNutrients(){
+        NutrientTransport transport = new NutrientTransport(0.1, 0.5, 0.);
+        BioSystem bs = newSystem(transport, 11L);
+        SimMetrics metrics = new SimMetrics(L);
+        bs.setMetrics(metrics);
+
+        for(double t = 2.; t <= 30.; t += 2.){
+            bs.run(t);
+            double total = metrics.getReplications();
+            for(int i = 0; i < L; i++){
+                total += bs.getMicrohabitat(i).getS() + transport.getRemainder(i);
+            }
+            assertEquals("at t = " + bs.getTimeElapsed(), (double)L*S, total, 1e-6);
+        }
+        assertTrue("nothing was used up", metrics.getReplications() > 0);
+    }
+
+    //neither diffusion nor the reservoir can take a level below zero or above s_max, however fast they are
+    @Test
+    public void levelsStayBetweenZeroAndS_max(){
+        double[][] rates = {{5., 0.}, {0., 5.}, {2., 0.5}};
+        for(double[] r : rates){
+            NutrientTransport transport = new NutrientTransport(0.05, r[0], r[1]);
+            BioSystem bs = newSystem(transport, 12L);
+
+            //checked after every transport step
+            for(double t = 0.05; t <= 20.; t += 0.05){
+                bs.run(t);
+                for(int i = 0; i < L; i++){
+                    int s = bs.getMicrohabitat(i).getS();
+                    assertTrue("s = " + s + " in " + i + " with " + transport, s >= 0 && s <= S);
+                }
+            }
+        }
+    }
+
+    //with the reservoir the used up nutrients come back, without it they're gone
+    @Test
+    public void replenishmentRefillsUsedUpNutrients(){
+        BioSystem closed = newSystem(new NutrientTransport(0.1, 0.5, 0.), 13L);
+        BioSystem fed = newSystem(new NutrientTransport(0.1, 0.5, 1.), 13L);
+        closed.run(30.);
+        fed.run(30.);
+
+        assertTrue(totalNutrients(fed) > totalNutrients(closed));
+        assertTrue(fed.getCurrentPopulation() > closed.getCurrentPopulation());
+    }
+
+    private static BioSystem newSystem(NutrientTransport transport, long seed){
+        BioSystem bs = new BioSystem(L, S, 0.03);
+        bs.setRand(new SimRandom(seed));
+        bs.setNutrientTransport(transport);
+        return bs;
+    }
+
+    private static long totalNutrients(BioSystem bs){
+        long total = 0;
+        for(int i = 0; i < L; i++) total += bs.getMicrohabitat(i).getS();
+        return total;
+    }
+}
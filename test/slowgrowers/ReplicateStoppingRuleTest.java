@@ -0,0 +1,65 @@
+package slowgrowers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class ReplicateStoppingRuleTest {
+
+    @Test
+    public void halfWidthIsTheStudentTInterval(){
+        double[] values = {1., 2., 3., 99.};
+        //mean 2, sample variance 1, so t(2 dof)*sqrt(1/3)
+        assertEquals(4.303*Math.sqrt(1./3.), ReplicateStoppingRule.halfWidth(values, 3), 1e-12);
+        assertEquals(2., ReplicateStoppingRule.mean(values, 3), 0.);
+
+        //beyond the table the normal quantile is used
+        double[] many = new double[40];
+        for(int k = 0; k < many.length; k++) many[k] = k % 2;
+        double sd = Math.sqrt(0.25*40./39.);
+        assertEquals(1.96*sd/Math.sqrt(40.), ReplicateStoppingRule.halfWidth(many, 40), 1e-12);
+    }
+
+    @Test
+    public void stopsOncePreciseEnough(){
+        ReplicateStoppingRule rule = new ReplicateStoppingRule(4, 100, 0.05);
+        double[] values = {1000., 1010., 990., 1000., 1005.};
+
+        //never before minReps, however close the values
+        assertFalse(rule.isDone(values, 3));
+        assertTrue(rule.isDone(values, 4));
+    }
+
+    @Test
+    public void keepsGoingUntilMaxRepsWhenTheSpreadIsWide(){
+        ReplicateStoppingRule rule = new ReplicateStoppingRule(2, 6, 0.05);
+        double[] values = {0., 2000., 0., 2000., 0., 2000.};
+        for(int n = 2; n < 6; n++) assertFalse("done after " + n, rule.isDone(values, n));
+        assertTrue(rule.isDone(values, 6));
+    }
+
+    @Test
+    public void addsHalfTheMinimumEachRound(){
+        assertEquals(1, new ReplicateStoppingRule(2, 10, 0.05).getBatchSize());
+        assertEquals(4, new ReplicateStoppingRule(8, 10, 0.05).getBatchSize());
+    }
+
+    @Test
+    public void rejectsRulesThatCantEstimateAnInterval(){
+        assertRejected(1, 10, 0.05);
+        assertRejected(4, 3, 0.05);
+        assertRejected(2, 10, 0.);
+    }
+
+    private static void assertRejected(int minReps, int maxReps, double precision){
+        try{
+            new ReplicateStoppingRule(minReps, maxReps, precision);
+            fail("accepted " + minReps + ", " + maxReps + ", " + precision);
+        }catch(IllegalArgumentException e){
+            //expected
+        }
+    }
+}
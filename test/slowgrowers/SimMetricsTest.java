@@ -0,0 +1,36 @@
+package slowgrowers;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.UncheckedIOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SimMetricsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    //a write which fails part way through a run stops the export, and close reports it
+    @Test
+    public void closeThrowsTheFailureWhichStoppedTheExport() throws InterruptedException{
+        File file = new File(folder.getRoot(), "metrics.txt");
+        SimMetrics metrics = new SimMetrics(10);
+        metrics.exportEvery(file.getPath().substring(0, file.getPath().length() - 4), 0.01);
+        assertTrue(file.isFile());
+
+        //the next rows can't be appended to a directory
+        assertTrue(file.delete() && file.mkdir());
+        Thread.sleep(200);
+        try{
+            metrics.close();
+            fail("the failed export wasn't reported");
+        }catch(UncheckedIOException e){
+            assertTrue(e.getMessage(), e.getMessage().contains("metrics.txt"));
+        }
+    }
+}
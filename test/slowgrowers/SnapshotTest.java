@@ -0,0 +1,64 @@
+package slowgrowers;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+public class SnapshotTest {
+
+    //a system restored from a snapshot part way through a run carries on exactly as the original does,
+    //nutrient transport included, for both exact engines
+    @Test
+    public void restoredRejectionRunMatchesTheOriginal(){
+        assertRestoredRunMatches(false);
+    }
+
+    @Test
+    public void restoredGillespieRunMatchesTheOriginal(){
+        assertRestoredRunMatches(true);
+    }
+
+    private static void assertRestoredRunMatches(boolean gillespie){
+        BioSystem bs = new BioSystem(SimParameters.DEFAULT.withMu(0.01), 60, 300, 0.03);
+        bs.setRand(new SimRandom(3));
+        bs.setEventEngine(gillespie ? new GillespieEngine() : new RejectionEngine());
+        bs.setNutrientTransport(new NutrientTransport(0.1, 0.5, 0.05));
+
+        while(bs.getTimeElapsed() < 10.) bs.performAction();
+        ByteBuffer snapshot = bs.toSnapshot();
+        while(bs.getTimeElapsed() < 20.) bs.performAction();
+
+        BioSystem restored = BioSystem.fromSnapshot(snapshot);
+        if(gillespie) restored.setEventEngine(new GillespieEngine());
+        while(restored.getTimeElapsed() < 20.) restored.performAction();
+
+        assertSameState(bs, restored);
+    }
+
+    @Test
+    public void snapshotOfARestoredSystemIsUnchanged(){
+        BioSystem bs = new BioSystem(SimParameters.DEFAULT.withFinalM(4).withMu(0.05).withPathway(2., 0.05), 40, 200, 0.05);
+        bs.setRand(new SimRandom(4));
+        while(bs.getTimeElapsed() < 10.) bs.performAction();
+
+        ByteBuffer snapshot = bs.toSnapshot();
+        ByteBuffer again = BioSystem.fromSnapshot(snapshot.duplicate()).toSnapshot();
+        assertEquals(snapshot, again);
+    }
+
+    static void assertSameState(BioSystem expected, BioSystem actual){
+        assertEquals(expected.getTimeElapsed(), actual.getTimeElapsed(), 0.);
+        assertEquals(expected.getRand().getState(), actual.getRand().getState());
+        assertEquals(expected.getCurrentPopulation(), actual.getCurrentPopulation());
+        assertEquals(expected.getCurrentNutrients(), actual.getCurrentNutrients());
+        for(int i = 0; i < expected.getL(); i++){
+            Microhabitat m = expected.getMicrohabitat(i), n = actual.getMicrohabitat(i);
+            assertEquals("nutrients of " + i, m.getS(), n.getS());
+            for(int g = 1; g <= m.getFinalM(); g++){
+                assertEquals("genotype " + g + " in " + i, m.getGenotypeCount(g), n.getGenotypeCount(g));
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package slowgrowers;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SteadyStateConditionTest {
+
+    @Test
+    public void needsTwoFullWindowsBeforeItCanBeMet(){
+        SteadyStateCondition condition = new SteadyStateCondition(3, 0.01);
+        for(int k = 0; k < 5; k++){
+            assertFalse("met after " + (k+1) + " samples", condition.addSample(1000.));
+        }
+        assertTrue(condition.addSample(1000.));
+        assertTrue(condition.isMet());
+    }
+
+    @Test
+    public void comparesTheLatestWindowWithTheOneBefore(){
+        SteadyStateCondition condition = new SteadyStateCondition(2, 0.01);
+        //a growing population: averages of 350 and 150
+        condition.addSample(100.);
+        condition.addSample(200.);
+        condition.addSample(300.);
+        assertFalse(condition.addSample(400.));
+        //levelling off, but averages of 405 and 350 are still more than 1% apart
+        assertFalse(condition.addSample(405.));
+        assertFalse(condition.addSample(405.));
+        //averages of 404 and 402.5
+        assertTrue(condition.addSample(403.));
+    }
+
+    @Test
+    public void anEmptyPopulationIsSteady(){
+        //the tolerance is relative, but never to less than a single bacterium
+        SteadyStateCondition condition = new SteadyStateCondition(1, 0.5);
+        condition.addSample(0.);
+        assertTrue(condition.addSample(0.));
+    }
+
+    @Test
+    public void stopsARunBeforeItsDuration(){
+        BioSystem bs = new BioSystem(20, 500, 0.02);
+        bs.setRand(new SimRandom(7));
+        //any change is within the tolerance, so the condition is met as soon as it has 2*2 samples, 1 apart
+        SteadyStateCondition condition = new SteadyStateCondition(bs, 1., 2, 1e9);
+        bs.run(50., condition);
+
+        assertTrue(condition.isMet(bs));
+        assertTrue("stopped at " + bs.getTimeElapsed(), bs.getTimeElapsed() < 5.);
+    }
+
+    @Test
+    public void withoutAConditionARunGoesToItsDuration(){
+        BioSystem bs = new BioSystem(20, 500, 0.02);
+        bs.setRand(new SimRandom(7));
+        bs.run(5.);
+        assertTrue(bs.getPopulationDead() || bs.getTimeElapsed() > 5.);
+    }
+}
@@ -0,0 +1,47 @@
+package slowgrowers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SumTreeTest {
+
+    @Test
+    public void findMatchesALinearScan(){
+        double[] weights = new double[23];
+        SumTree tree = new SumTree(weights.length);
+        SimRandom rand = new SimRandom(3);
+        for(int i = 0; i < weights.length; i++){
+            weights[i] = (i % 4 == 1) ? 0. : rand.nextDouble();
+            tree.set(i, weights[i]);
+        }
+
+        double total = 0.;
+        for(double w : weights) total += w;
+        assertEquals(total, tree.getTotal(), 1e-12);
+
+        for(int k = 0; k < 10000; k++){
+            double target = rand.nextDouble()*tree.getTotal();
+            int i = tree.find(target);
+            assertTrue("zero weight leaf " + i + " returned", weights[i] > 0.);
+
+            double before = 0.;
+            for(int j = 0; j < i; j++) before += weights[j];
+            assertTrue(before <= target + 1e-12 && target < before + weights[i] + 1e-12);
+        }
+    }
+
+    @Test
+    public void targetAtTheTotalNeverReturnsAnEmptyLeaf(){
+        SumTree tree = new SumTree(6);
+        tree.set(1, 0.25);
+        tree.set(2, 0.5);
+        //rounding can push a draw up to the total, which has to land on the last non-empty leaf
+        assertEquals(2, tree.find(tree.getTotal()));
+        assertEquals(1, tree.find(0.));
+
+        tree.set(2, 0.);
+        assertEquals(1, tree.find(tree.getTotal()));
+    }
+}
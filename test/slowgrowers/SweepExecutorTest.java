@@ -0,0 +1,94 @@
+package slowgrowers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class SweepExecutorTest {
+
+    //a short run of a small system, so the value depends on the whole of the replicate's stream
+    private static final SweepExecutor.Replicate SMALL_SYSTEM = new SweepExecutor.Replicate() {
+        public double run(int i, int j, int rep, SimRandom rand){
+            BioSystem bs = new BioSystem(10, 10, 100*(i+1), 0.01*j);
+            bs.setRand(rand);
+            bs.run(2.);
+            return bs.getCurrentPopulation() + rand.nextDouble();
+        }
+    };
+
+    @Test
+    public void resultsDependOnTheSeedAndNotTheThreads(){
+        double[][][] serial = new SweepExecutor(1, 42L).run(3, 2, 4, SMALL_SYSTEM);
+        double[][][] parallel = new SweepExecutor(4, 42L).run(3, 2, 4, SMALL_SYSTEM);
+        assertSameResults(serial, parallel);
+
+        double[][][] otherSeed = new SweepExecutor(4, 43L).run(3, 2, 4, SMALL_SYSTEM);
+        assertFalse(Arrays.deepEquals(serial, otherSeed));
+    }
+
+    @Test
+    public void everyReplicateHasItsOwnStream(){
+        SweepExecutor executor = new SweepExecutor(2, 7L);
+        double[][][] results = executor.run(2, 2, 3, new SweepExecutor.Replicate() {
+            public double run(int i, int j, int rep, SimRandom rand){
+                return rand.nextDouble();
+            }
+        });
+        for(int i = 0; i < 2; i++){
+            for(int j = 0; j < 2; j++){
+                for(int rep = 0; rep < 3; rep++){
+                    assertEquals(executor.stream(i, j, rep, 2, 3).nextDouble(), results[i][j][rep], 0.);
+                    for(int k = 0; k < rep; k++) assertFalse(results[i][j][k] == results[i][j][rep]);
+                }
+            }
+        }
+    }
+
+    //a point which stops adding replicates early has run the first replicates of the fixed-size sweep
+    @Test
+    public void theStoppingRuleRunsTheSameReplicates(){
+        ReplicateStoppingRule rule = new ReplicateStoppingRule(2, 6, 0.5);
+        double[][][] adaptive = new SweepExecutor(3, 11L).run(3, 2, rule, SMALL_SYSTEM);
+        double[][][] fixed = new SweepExecutor(1, 11L).run(3, 2, 6, SMALL_SYSTEM);
+
+        for(int i = 0; i < 3; i++){
+            for(int j = 0; j < 2; j++){
+                double[] reps = adaptive[i][j];
+                assertArrayEquals(Arrays.copyOf(fixed[i][j], reps.length), reps, 0.);
+            }
+        }
+        assertSameResults(adaptive, new SweepExecutor(1, 11L).run(3, 2, rule, SMALL_SYSTEM));
+    }
+
+    @Test
+    public void ensemblesGetTheSameStreams(){
+        SweepExecutor executor = new SweepExecutor(2, 5L);
+        double[][][] ensembles = executor.runEnsembles(2, 2, 3, new SweepExecutor.ReplicateEnsemble() {
+            public double[] run(int i, int j, int[] reps, SimRandom[] rands){
+                double[] values = new double[reps.length];
+                for(int k = 0; k < reps.length; k++) values[k] = rands[k].nextDouble();
+                return values;
+            }
+        });
+        double[][][] replicates = executor.run(2, 2, 3, new SweepExecutor.Replicate() {
+            public double run(int i, int j, int rep, SimRandom rand){
+                return rand.nextDouble();
+            }
+        });
+        assertSameResults(replicates, ensembles);
+    }
+
+    private static void assertSameResults(double[][][] expected, double[][][] actual){
+        assertEquals(expected.length, actual.length);
+        for(int i = 0; i < expected.length; i++){
+            assertEquals(expected[i].length, actual[i].length);
+            for(int j = 0; j < expected[i].length; j++){
+                assertArrayEquals("point " + i + ", " + j, expected[i][j], actual[i][j], 0.);
+            }
+        }
+    }
+}
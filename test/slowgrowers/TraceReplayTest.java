@@ -0,0 +1,72 @@
+package slowgrowers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TraceReplayTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    //replaying a trace up to any time rebuilds the state the run had then, for an exact and a leaping engine
+    @Test
+    public void replayRebuildsTheRejectionRun() throws IOException{
+        assertReplayMatches(new RejectionEngine());
+    }
+
+    @Test
+    public void replayRebuildsTheTauLeapRun() throws IOException{
+        assertReplayMatches(new TauLeapEngine());
+    }
+
+    private void assertReplayMatches(EventEngine engine) throws IOException{
+        String filename = new File(folder.getRoot(), "run.trace").getPath();
+
+        BioSystem bs = new BioSystem(SimParameters.DEFAULT.withMu(0.01), 60, 300, 0.03);
+        bs.setRand(new SimRandom(5));
+        bs.setEventEngine(engine);
+        bs.setNutrientTransport(new NutrientTransport(0.1, 0.5, 0.05));
+        EventTrace trace = new EventTrace(filename, bs);
+        bs.setTrace(trace);
+
+        TraceReplay replay = null;
+        try{
+            while(bs.getTimeElapsed() < 15.) bs.performAction();
+            double midTime = bs.getTimeElapsed();
+            String midState = describe(bs);
+
+            while(bs.getTimeElapsed() < 30.) bs.performAction();
+            trace.close(bs);
+            assertTrue(trace.getNRecords() > 0);
+
+            replay = new TraceReplay(filename);
+            replay.advanceTo(midTime);
+            assertEquals(midState, describe(replay.getSystem()));
+
+            while(replay.advanceTo(replay.getSystem().getTimeElapsed() + 1.)){}
+            assertEquals(bs.getTimeElapsed(), replay.getEndTime(), 0.);
+            assertEquals(describe(bs), describe(replay.getSystem()));
+        }finally{
+            if(replay != null) replay.close();
+        }
+    }
+
+    //the nutrients and genotype counts of every microhabitat
+    private static String describe(BioSystem bs){
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < bs.getL(); i++){
+            Microhabitat m = bs.getMicrohabitat(i);
+            sb.append(m.getS());
+            for(int g = 1; g <= m.getFinalM(); g++) sb.append(',').append(m.getGenotypeCount(g));
+            sb.append(' ');
+        }
+        return sb.toString();
+    }
+}